@@ -0,0 +1,74 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.data.auditing.AuditingHandler;
+import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
+import org.springframework.data.mapping.context.PersistentEntities;
+import study.datajpa.config.RequestCachedAuditorAware;
+import study.datajpa.entity.FastAuditingEntityListener;
+import study.datajpa.entity.Item;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Clock;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+//save 시 감사 필드 채우는 비용 : 기존 방식(AuditingHandler + 매번 UUID.randomUUID) vs FastAuditingEntityListener
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)//SecureRandom 경합이 드러나도록 여러 스레드에서 실행한다
+public class AuditingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Listeners {
+        AuditingHandler springAuditingHandler;
+        RequestCachedAuditorAware auditorAware;
+        FastAuditingEntityListener fastListener;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkContext ctx) {
+            //기존 @EnableJpaAuditing 과 같은 구성
+            JpaMetamodelMappingContext mappingContext = new JpaMetamodelMappingContext(
+                    Collections.singleton(ctx.context.getBean(EntityManagerFactory.class).getMetamodel()));
+            mappingContext.initialize();
+            springAuditingHandler = new AuditingHandler(PersistentEntities.of(mappingContext));
+            springAuditingHandler.setAuditorAware(() -> Optional.of(UUID.randomUUID().toString()));
+
+            auditorAware = new RequestCachedAuditorAware();
+            fastListener = new FastAuditingEntityListener(Clock.system(ZoneId.systemDefault()), auditorAware);
+        }
+    }
+
+    @Benchmark
+    public Item springAuditingEntityListener(Listeners listeners) {
+        return listeners.springAuditingHandler.markCreated(new Item(1L, "item"));
+    }
+
+    @Benchmark
+    public Item fastAuditingEntityListener(Listeners listeners) {
+        Item item = new Item(1L, "item");
+        listeners.fastListener.prePersist(item);
+        return item;
+    }
+
+    @Benchmark
+    public String randomUuidAuditor() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public String cachedAuditor(Listeners listeners) {
+        return listeners.auditorAware.currentAuditor();
+    }
+}
@@ -0,0 +1,88 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//내장 H2(mem)로 애플리케이션을 띄우고 team 100개, member 10,000명을 넣어둔다
+@State(Scope.Benchmark)
+public class BenchmarkContext {
+
+    public static final int TEAM_COUNT = 100;
+    public static final int MEMBER_COUNT = 10_000;
+
+    public ConfigurableApplicationContext context;
+    public MemberRepository memberRepository;
+    private TransactionTemplate readOnlyTemplate;
+    private TransactionTemplate writeTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments());
+
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnlyTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTemplate.setReadOnly(true);
+        writeTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        seed(context.getBean(TeamRepository.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //트랜잭션(영속성 컨텍스트) 하나 안에서 실행한다. 지연로딩 비용까지 측정에 포함된다
+    public <T> T readOnly(TransactionCallback<T> callback) {
+        return readOnlyTemplate.execute(callback);
+    }
+
+    public <T> T inTransaction(TransactionCallback<T> callback) {
+        return writeTemplate.execute(callback);
+    }
+
+    protected String[] arguments() {
+        return new String[]{
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                //캐시에 맞으면 로딩 전략끼리 비교가 안되니 끈다
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                "--decorator.datasource.p6spy.enable-logging=false",
+                "--logging.level.org.hibernate.SQL=warn"
+        };
+    }
+
+    private void seed(TeamRepository teamRepository) {
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < TEAM_COUNT; i++) {
+            teams.add(new Team("team" + i));
+        }
+        teamRepository.persistInBatch(teams);
+
+        //userName, age 모두 100종류 -> findByUserName / findByAge 가 각각 100건씩 걸린다
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < MEMBER_COUNT; i++) {
+            members.add(new Member("user" + (i % 100), i % 100, teams.get(i % TEAM_COUNT)));
+        }
+        memberRepository.persistInBatch(members);
+    }
+}
@@ -0,0 +1,76 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.data.domain.PageRequest;
+import study.datajpa.entity.Member;
+import study.datajpa.service.OptimisticLockRetry;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//여러 worker가 member를 batch 단위로 가져가 처리하는 처리량
+//- pessimisticHead : 매번 id 순 앞쪽 batch를 select for update -> worker끼리 같은 row에서 줄을 선다
+//- claimNextSkipLocked : claimNext (for update skip locked). 처리한 row는 큐 뒤로 간다
+//- optimisticRetry : 잠그지 않고 임의의 member를 수정, 충돌 시 재시도
+//H2 dialect는 skip locked를 지원하지 않아 일반 for update로 실행된다. PostgreSQL / MySQL 8 에서 비교해야 차이가 드러난다
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class LockingBenchmark {
+
+    private static final int BATCH = 10;
+
+    @State(Scope.Benchmark)
+    public static class Workers {
+        EntityManager em;
+        OptimisticLockRetry optimisticLockRetry;
+        List<Long> ids;
+
+        @Setup(Level.Trial)
+        public void setUp(BenchmarkContext ctx) {
+            em = ctx.context.getBean(EntityManager.class);
+            optimisticLockRetry = ctx.context.getBean(OptimisticLockRetry.class);
+            ids = ctx.readOnly(status -> em.createQuery("select m.id from Member m", Long.class).getResultList());
+        }
+    }
+
+    @Benchmark
+    public int pessimisticHead(BenchmarkContext ctx, Workers workers) {
+        return ctx.inTransaction(status -> process(workers.em.createQuery("select m from Member m order by m.id", Member.class)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setMaxResults(BATCH)
+                .getResultList()));
+    }
+
+    @Benchmark
+    public int claimNextSkipLocked(BenchmarkContext ctx) {
+        return ctx.inTransaction(status -> process(ctx.memberRepository.claimNext(PageRequest.of(0, BATCH))));
+    }
+
+    @Benchmark
+    public int optimisticRetry(BenchmarkContext ctx, Workers workers) {
+        Long id = workers.ids.get(ThreadLocalRandom.current().nextInt(workers.ids.size()));
+        return workers.optimisticLockRetry.execute(100, () ->
+                process(ctx.memberRepository.findById(id).map(Collections::singletonList)
+                        .orElseGet(Collections::emptyList)));
+    }
+
+    private static int process(List<Member> members) {
+        for (Member member : members) {
+            member.setAge(member.getAge() + 1);
+        }
+        return members.size();
+    }
+}
@@ -0,0 +1,123 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.NestedClosedProjections;
+import study.datajpa.repository.UserNameOnly;
+import study.datajpa.repository.UserNameOnlyDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//같은 결과를 내는 repository 메소드들의 로딩 전략 비교
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberQueryBenchmark {
+
+    private static final String USER_NAME = "user1";
+    private static final PageRequest PAGE = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "id"));
+
+    //---- member + team 로딩 : 지연로딩(batch fetch) vs fetch join vs entity graph
+    @Benchmark
+    public void findAll2Lazy(BenchmarkContext ctx, Blackhole bh) {
+        ctx.readOnly(status -> consumeTeams(ctx.memberRepository.findAll2(), bh));
+    }
+
+    @Benchmark
+    public void findAllMemberFetchJoin(BenchmarkContext ctx, Blackhole bh) {
+        ctx.readOnly(status -> consumeTeams(ctx.memberRepository.findAllMemberFetchJoin(), bh));
+    }
+
+    @Benchmark
+    public void findAllMemberEntityGraph(BenchmarkContext ctx, Blackhole bh) {
+        ctx.readOnly(status -> consumeTeams(ctx.memberRepository.findAllMemberEntityGraph(), bh));
+    }
+
+    @Benchmark
+    public void findEntityGraphByUserName(BenchmarkContext ctx, Blackhole bh) {
+        ctx.readOnly(status -> consumeTeams(ctx.memberRepository.findEntityGraphByUserName(USER_NAME), bh));
+    }
+
+    //---- 엔티티 vs projection
+    @Benchmark
+    public void entityByUserName(BenchmarkContext ctx, Blackhole bh) {
+        ctx.readOnly(status -> {
+            for (Member member : ctx.memberRepository.findMemberListByUserName(USER_NAME)) {
+                bh.consume(member.getUserName());
+            }
+            return null;
+        });
+    }
+
+    @Benchmark
+    public void interfaceProjection(BenchmarkContext ctx, Blackhole bh) {
+        ctx.readOnly(status -> {
+            for (UserNameOnly projection : ctx.memberRepository.findProjectionsByUserName(USER_NAME)) {
+                bh.consume(projection.getUserName());
+            }
+            return null;
+        });
+    }
+
+    @Benchmark
+    public void nestedClosedProjection(BenchmarkContext ctx, Blackhole bh) {
+        ctx.readOnly(status -> {
+            for (NestedClosedProjections projection : ctx.memberRepository.findDynamicProjectionByUserName(USER_NAME, NestedClosedProjections.class)) {
+                bh.consume(projection.getTeam().getTeamName());
+            }
+            return null;
+        });
+    }
+
+    @Benchmark
+    public void classProjection(BenchmarkContext ctx, Blackhole bh) {
+        ctx.readOnly(status -> {
+            for (UserNameOnlyDto dto : ctx.memberRepository.findProjectDtoByUserName(USER_NAME)) {
+                bh.consume(dto.getUserName());
+            }
+            return null;
+        });
+    }
+
+    //findMemberDto 는 이름 조건이 없어서 전체(10,000건)를 읽는다. findAll 계열과 비교한다
+    @Benchmark
+    public void constructorQueryDto(BenchmarkContext ctx, Blackhole bh) {
+        ctx.readOnly(status -> {
+            for (MemberDto dto : ctx.memberRepository.findMemberDto()) {
+                bh.consume(dto.getTeamName());
+            }
+            return null;
+        });
+    }
+
+    //---- Page(count 쿼리 포함) vs Slice(limit + 1)
+    @Benchmark
+    public void page(BenchmarkContext ctx, Blackhole bh) {
+        ctx.readOnly(status -> {
+            bh.consume(ctx.memberRepository.findByAge(1, PAGE).getContent());
+            return null;
+        });
+    }
+
+    @Benchmark
+    public void slice(BenchmarkContext ctx, Blackhole bh) {
+        ctx.readOnly(status -> {
+            bh.consume(ctx.memberRepository.findByUserName(USER_NAME, PAGE).getContent());
+            return null;
+        });
+    }
+
+    private static Object consumeTeams(List<Member> members, Blackhole bh) {
+        for (Member member : members) {
+            bh.consume(member.getTeam().getTeamName());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,77 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.NestedClosedProjections;
+import study.datajpa.repository.UserNameOnly;
+import study.datajpa.repository.projection.CompiledProjectionFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//row 하나를 projection으로 만들고 getter를 읽는 비용 : 기존 proxy + SpEL vs CompiledProjectionFactory
+//DB를 거치지 않고 factory만 비교한다
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProjectionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Sources {
+        ProjectionFactory proxyFactory;
+        ProjectionFactory compiledFactory;
+        Member member;
+        //closed projection은 tuple을 Map으로 감싼 값이 source가 된다
+        Map<String, Object> tuple;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            proxyFactory = new SpelAwareProxyProjectionFactory();
+            compiledFactory = new CompiledProjectionFactory();
+
+            Team team = new Team("teamA");
+            member = new Member("user1", 10, team);
+            tuple = new HashMap<>();
+            tuple.put("userName", "user1");
+            tuple.put("team", team);
+        }
+    }
+
+    //---- open projection : @Value("#{target.userName + ' ' + target.age}")
+    @Benchmark
+    public void openProjectionProxy(Sources sources, Blackhole bh) {
+        bh.consume(sources.proxyFactory.createProjection(UserNameOnly.class, sources.member).getMemberUserNameAndAge());
+    }
+
+    @Benchmark
+    public void openProjectionCompiled(Sources sources, Blackhole bh) {
+        bh.consume(sources.compiledFactory.createProjection(UserNameOnly.class, sources.member).getMemberUserNameAndAge());
+    }
+
+    //---- 중첩 closed projection
+    @Benchmark
+    public void nestedProjectionProxy(Sources sources, Blackhole bh) {
+        consume(sources.proxyFactory.createProjection(NestedClosedProjections.class, sources.tuple), bh);
+    }
+
+    @Benchmark
+    public void nestedProjectionCompiled(Sources sources, Blackhole bh) {
+        consume(sources.compiledFactory.createProjection(NestedClosedProjections.class, sources.tuple), bh);
+    }
+
+    private static void consume(NestedClosedProjections projection, Blackhole bh) {
+        bh.consume(projection.getUserName());
+        bh.consume(projection.getTeam().getTeamName());
+    }
+}
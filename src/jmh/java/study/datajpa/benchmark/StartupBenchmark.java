@@ -0,0 +1,49 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.DataJpaApplication;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//애플리케이션 기동 시간 (repository bootstrap-mode 별)
+//- default : 기동 중 모든 repository를 만들면서 query 메소드를 파싱/검증한다
+//- lazy : repository를 처음 주입받아 쓸 때 만든다. 검증은 빌드 시점(generateRepositoryMetadata)에 끝나있다
+//한 번 기동하는 시간이 관심사라 SingleShotTime으로 잰다. JIT warmup 전의 값이 실제 기동에 가깝다
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    private static final AtomicInteger DATABASE = new AtomicInteger();
+
+    @Param({"default", "lazy"})
+    public String bootstrapMode;
+
+    @Benchmark
+    public ConfigurableApplicationContext start() {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--datajpa.repositories.bootstrap-mode=" + bootstrapMode,
+                        //매번 새 DB (이전 기동의 schema를 재사용하지 않도록)
+                        "--spring.datasource.url=jdbc:h2:mem:startup" + DATABASE.incrementAndGet(),
+                        "--decorator.datasource.p6spy.enable-logging=false",
+                        "--logging.level.org.hibernate.SQL=warn");
+        context.close();
+        return context;
+    }
+}
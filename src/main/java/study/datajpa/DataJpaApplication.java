@@ -2,23 +2,12 @@ package study.datajpa;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
-import org.springframework.data.domain.AuditorAware;
-import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 
-import java.util.Optional;
-import java.util.UUID;
-
-@EnableJpaAuditing
+//auditing 설정은 config.AuditingConfig
 @SpringBootApplication
 public class DataJpaApplication {
 
 	public static void main(String[] args) {
 		SpringApplication.run(DataJpaApplication.class, args);
 	}
-
-	@Bean
-	public AuditorAware<String> auditorAwareProvider(){
-		return () -> Optional.of(UUID.randomUUID().toString());
-	}
 }
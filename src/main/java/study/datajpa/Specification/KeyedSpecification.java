@@ -0,0 +1,96 @@
+package study.datajpa.Specification;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+//구조 키가 같으면 같은 JPQL로 번역되는 Specification
+//값은 ValueBinder를 통해서만 넣는다. 캐시 경로에서는 이름 있는 파라미터, 일반 findAll(spec)에서는 literal이 된다
+public interface KeyedSpecification<T> extends Specification<T> {
+
+    String structureKey();
+
+    Map<String, Object> parameters();
+
+    Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder, ValueBinder binder);
+
+    @Override
+    default Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        return toPredicate(root, query, criteriaBuilder, ValueBinder.literals(criteriaBuilder, parameters()));
+    }
+
+    static <T> KeyedSpecification<T> of(String structureKey, Map<String, Object> parameters, PredicateFactory<T> factory) {
+        return new KeyedSpecification<T>() {
+            @Override
+            public String structureKey() {
+                return structureKey;
+            }
+
+            @Override
+            public Map<String, Object> parameters() {
+                return parameters;
+            }
+
+            @Override
+            public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder, ValueBinder binder) {
+                return factory.toPredicate(root, query, criteriaBuilder, binder);
+            }
+        };
+    }
+
+    default KeyedSpecification<T> and(KeyedSpecification<T> other) {
+        Map<String, Object> merged = new LinkedHashMap<>(parameters());
+        other.parameters().forEach((name, value) -> {
+            if (merged.containsKey(name) && !Objects.equals(merged.get(name), value)) {
+                throw new IllegalArgumentException("parameter '" + name + "' is bound to different values");
+            }
+            merged.put(name, value);
+        });
+        return of("(" + structureKey() + " and " + other.structureKey() + ")", Collections.unmodifiableMap(merged),
+                (root, query, criteriaBuilder, binder) -> {
+                    Predicate left = toPredicate(root, query, criteriaBuilder, binder);
+                    Predicate right = other.toPredicate(root, query, criteriaBuilder, binder);
+                    if (left == null) {
+                        return right;
+                    }
+                    return right == null ? left : criteriaBuilder.and(left, right);
+                });
+    }
+
+    @FunctionalInterface
+    interface PredicateFactory<T> {
+        Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder, ValueBinder binder);
+    }
+
+    interface ValueBinder {
+
+        <V> Expression<V> value(String name, Class<V> type);
+
+        static ValueBinder literals(CriteriaBuilder criteriaBuilder, Map<String, Object> parameters) {
+            return new ValueBinder() {
+                @Override
+                public <V> Expression<V> value(String name, Class<V> type) {
+                    Object value = parameters.get(name);
+                    return value == null ? criteriaBuilder.nullLiteral(type) : criteriaBuilder.literal(type.cast(value));
+                }
+            };
+        }
+
+        static ValueBinder namedParameters(CriteriaBuilder criteriaBuilder) {
+            return new ValueBinder() {
+                @Override
+                public <V> Expression<V> value(String name, Class<V> type) {
+                    return criteriaBuilder.parameter(type, name);
+                }
+            };
+        }
+    }
+}
@@ -1,25 +1,117 @@
 package study.datajpa.Specification;
 
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.StringUtils;
+import study.datajpa.dto.MemberSearchCondition;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
 
 import javax.persistence.criteria.*;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 public class MemberSpec {
 
-    public static Specification<Member> teamName(final String teamName){
-        return (Specification<Member>)(root, query, criteriaBuilder) -> {
-            if(StringUtils.isEmpty(teamName)){
-                return null;
+    private static final char LIKE_ESCAPE = '\\';
+
+    public static KeyedSpecification<Member> teamName(final String teamName){
+        if(StringUtils.isEmpty(teamName)){
+            return none("teamName");
+        }
+        return KeyedSpecification.of("teamName", Collections.singletonMap("teamName", teamName),
+                (root, query, criteriaBuilder, binder) -> {
+                    Join<Member, Team> t = teamJoin(root, JoinType.INNER);
+                    return criteriaBuilder.equal(t.get("teamName"), binder.value("teamName", String.class));
+                });
+    }
+
+    public static KeyedSpecification<Member> userName(final String userName){
+        return KeyedSpecification.of("userName", Collections.singletonMap("userName", userName),
+                (root, query, criteriaBuilder, binder) ->
+                        criteriaBuilder.equal(root.get("userName"), binder.value("userName", String.class)));
+    }
+
+    //like 'prefix%' 만 허용한다 -> (userName, MEMBER_ID) 인덱스를 range scan 한다
+    public static KeyedSpecification<Member> userNameStartsWith(final String prefix){
+        if(StringUtils.isEmpty(prefix)){
+            return none("userNamePrefix");
+        }
+        return KeyedSpecification.of("userNamePrefix", Collections.singletonMap("userNamePrefix", escapeLike(prefix) + "%"),
+                (root, query, criteriaBuilder, binder) -> criteriaBuilder.like(root.<String>get("userName"),
+                        binder.value("userNamePrefix", String.class), LIKE_ESCAPE));
+    }
+
+    public static KeyedSpecification<Member> ageGoe(final Integer age){
+        if(age == null){
+            return none("ageGoe");
+        }
+        return KeyedSpecification.of("ageGoe", Collections.singletonMap("ageGoe", age),
+                (root, query, criteriaBuilder, binder) ->
+                        criteriaBuilder.greaterThanOrEqualTo(root.<Integer>get("age"), binder.value("ageGoe", Integer.class)));
+    }
+
+    public static KeyedSpecification<Member> ageLoe(final Integer age){
+        if(age == null){
+            return none("ageLoe");
+        }
+        return KeyedSpecification.of("ageLoe", Collections.singletonMap("ageLoe", age),
+                (root, query, criteriaBuilder, binder) ->
+                        criteriaBuilder.lessThanOrEqualTo(root.<Integer>get("age"), binder.value("ageLoe", Integer.class)));
+    }
+
+    //keyset 커서 : id 순으로 lastId 이후
+    public static KeyedSpecification<Member> idGreaterThan(final Long lastId){
+        if(lastId == null){
+            return none("lastId");
+        }
+        return KeyedSpecification.of("lastId", Collections.singletonMap("lastId", lastId),
+                (root, query, criteriaBuilder, binder) ->
+                        criteriaBuilder.greaterThan(root.<Long>get("id"), binder.value("lastId", Long.class)));
+    }
+
+    //keyset 커서 : (userName, id) 순으로 (lastUserName, lastId) 이후. (userName, MEMBER_ID) 인덱스 순서 그대로 읽는다
+    public static KeyedSpecification<Member> afterUserNameAndId(final String lastUserName, final Long lastId){
+        if(lastUserName == null || lastId == null){
+            return none("lastUserNameAndId");
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("lastUserName", lastUserName);
+        params.put("lastId", lastId);
+        return KeyedSpecification.of("lastUserNameAndId", params,
+                (root, query, criteriaBuilder, binder) -> {
+                    Expression<String> lastName = binder.value("lastUserName", String.class);
+                    return criteriaBuilder.or(
+                            criteriaBuilder.greaterThan(root.<String>get("userName"), lastName),
+                            criteriaBuilder.and(
+                                    criteriaBuilder.equal(root.get("userName"), lastName),
+                                    criteriaBuilder.greaterThan(root.<Long>get("id"), binder.value("lastId", Long.class))));
+                });
+    }
+
+    public static KeyedSpecification<Member> search(MemberSearchCondition condition){
+        return userNameStartsWith(condition.getUserNamePrefix())
+                .and(ageGoe(condition.getAgeGoe()))
+                .and(ageLoe(condition.getAgeLoe()))
+                .and(teamName(condition.getTeamName()));
+    }
+
+    //이미 team join이 있으면 그 join을 다시 쓰고, 없으면 joinType으로 새로 join 한다
+    @SuppressWarnings("unchecked")
+    public static Join<Member, Team> teamJoin(Root<Member> root, JoinType joinType){
+        for (Join<Member, ?> join : root.getJoins()) {
+            if ("team".equals(join.getAttribute().getName())) {
+                return (Join<Member, Team>) join;
             }
-            Join<Member, Team> t = root.join("team", JoinType.INNER);
-            return criteriaBuilder.equal(t.get("teamName"), teamName);
-        };
+        }
+        return root.join("team", joinType);
+    }
+
+    //조건이 빠지면 JPQL 구조가 달라지므로 키도 달라야 한다
+    private static KeyedSpecification<Member> none(String name){
+        return KeyedSpecification.of(name + ":none", Collections.emptyMap(), (root, query, criteriaBuilder, binder) -> null);
     }
 
-    public static Specification<Member> userName(final String userName){
-        return (Specification<Member>)(root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("userName"), userName);
+    private static String escapeLike(String value){
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 }
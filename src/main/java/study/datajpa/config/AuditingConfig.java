@@ -0,0 +1,23 @@
+package study.datajpa.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.ZoneId;
+
+//BaseTimeEntity, BaseEntity, JpaBaseEntity 의 감사 필드는 FastAuditingEntityListener 가 채운다
+@Configuration
+public class AuditingConfig {
+
+    //LocalDateTime.now()는 호출마다 기본 TimeZone을 복사해서 Clock을 만든다. zone을 고정한 Clock 하나를 재사용한다
+    @Bean
+    public Clock auditingClock() {
+        return Clock.system(ZoneId.systemDefault());
+    }
+
+    @Bean
+    public RequestCachedAuditorAware auditorAwareProvider() {
+        return new RequestCachedAuditorAware();
+    }
+}
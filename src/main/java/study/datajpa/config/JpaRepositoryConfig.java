@@ -0,0 +1,47 @@
+package study.datajpa.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.repository.config.BootstrapMode;
+import study.datajpa.repository.projection.CompiledProjectionFactory;
+import study.datajpa.repository.projection.CompiledProjectionJpaRepositoryFactoryBean;
+
+//repository가 인터페이스 projection을 proxy 대신 생성된 클래스로 만든다
+//datajpa.repositories.bootstrap-mode 로 repository 생성 시점을 고른다
+//- default : 기동 중에 모든 repository를 만들고 query 메소드를 파싱 / 검증한다
+//- deferred : 기동이 끝난 직후(ContextRefreshedEvent) 만든다
+//- lazy : 처음 사용할 때 만든다. 검증은 빌드 시점의 generateRepositoryMetadata 가 대신한다
+@Configuration
+public class JpaRepositoryConfig {
+
+    static final String BASE_PACKAGE = "study.datajpa.repository";
+
+    //repository 전체가 같이 쓴다. 생성된 클래스도 여기에 캐시된다
+    @Bean
+    public CompiledProjectionFactory compiledProjectionFactory() {
+        return new CompiledProjectionFactory();
+    }
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "datajpa.repositories", name = "bootstrap-mode", havingValue = "default", matchIfMissing = true)
+    @EnableJpaRepositories(basePackages = BASE_PACKAGE, bootstrapMode = BootstrapMode.DEFAULT,
+            repositoryFactoryBeanClass = CompiledProjectionJpaRepositoryFactoryBean.class)
+    static class DefaultBootstrap {
+    }
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "datajpa.repositories", name = "bootstrap-mode", havingValue = "deferred")
+    @EnableJpaRepositories(basePackages = BASE_PACKAGE, bootstrapMode = BootstrapMode.DEFERRED,
+            repositoryFactoryBeanClass = CompiledProjectionJpaRepositoryFactoryBean.class)
+    static class DeferredBootstrap {
+    }
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "datajpa.repositories", name = "bootstrap-mode", havingValue = "lazy")
+    @EnableJpaRepositories(basePackages = BASE_PACKAGE, bootstrapMode = BootstrapMode.LAZY,
+            repositoryFactoryBeanClass = CompiledProjectionJpaRepositoryFactoryBean.class)
+    static class LazyBootstrap {
+    }
+}
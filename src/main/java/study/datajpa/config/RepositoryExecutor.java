@@ -0,0 +1,165 @@
+package study.datajpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//AsyncMemberRepository가 쓰는 executor. 동시에 실행되는 작업 수를 커넥션 풀 크기로 제한한다
+//- platform : 풀 크기만큼의 고정 스레드 + 제한된 큐. 큐가 차면 RejectedExecutionException
+//- virtual : JDK 21+ 의 virtual thread. 커넥션을 기다리며 스레드를 잡아두지 않도록 semaphore로 동시 실행 수만 제한한다
+//Executor 빈으로 등록하면 스프링 부트의 applicationTaskExecutor가 빠지므로 이 클래스로 감싼다
+//시작 크기는 maximum-pool-size. AdaptivePoolSizer가 pool 크기를 바꾸면 resize()로 같이 따라간다
+@Slf4j
+@Component
+public class RepositoryExecutor implements DisposableBean {
+
+    private final ExecutorService executor;
+
+    public RepositoryExecutor(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                              @Value("${datajpa.async.mode:platform}") String mode,
+                              @Value("${datajpa.async.queue-capacity:1000}") int queueCapacity) {
+        ExecutorService virtual = "virtual".equalsIgnoreCase(mode) ? newVirtualThreadPerTaskExecutor() : null;
+        if (virtual != null) {
+            this.executor = new PermitBoundedExecutor(virtual, poolSize);
+        } else {
+            if ("virtual".equalsIgnoreCase(mode)) {
+                log.warn("virtual threads are not supported on this JDK, falling back to a platform thread pool");
+            }
+            this.executor = newPlatformExecutor(poolSize, queueCapacity);
+        }
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    //동시 실행 수를 바뀐 커넥션 풀 크기에 맞춘다
+    public void resize(int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("poolSize must be positive: " + poolSize);
+        }
+        if (executor instanceof PermitBoundedExecutor) {
+            ((PermitBoundedExecutor) executor).resize(poolSize);
+            return;
+        }
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+        //core <= max 를 유지하는 순서로 바꾼다
+        if (poolSize > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(poolSize);
+            pool.setCorePoolSize(poolSize);
+        } else {
+            pool.setCorePoolSize(poolSize);
+            pool.setMaximumPoolSize(poolSize);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private static ExecutorService newPlatformExecutor(int poolSize, int queueCapacity) {
+        AtomicInteger sequence = new AtomicInteger();
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "repository-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    //java 8 로 컴파일하므로 리플렉션으로 찾는다
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    //작업마다 permit을 얻은 뒤 실행한다. virtual thread는 기다리는 동안 carrier 스레드를 놓아준다
+    static final class PermitBoundedExecutor extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+        private final ResizableSemaphore permits;
+        private int limit;
+
+        PermitBoundedExecutor(ExecutorService delegate, int permits) {
+            this.delegate = delegate;
+            this.permits = new ResizableSemaphore(permits);
+            this.limit = permits;
+        }
+
+        //줄일 때는 남은 permit을 먼저 회수한다. 실행 중인 작업이 반납하는 만큼 음수에서 채워지므로 새 한도를 넘지 않는다
+        synchronized void resize(int newLimit) {
+            if (newLimit > limit) {
+                permits.release(newLimit - limit);
+            } else if (newLimit < limit) {
+                permits.reducePermits(limit - newLimit);
+            }
+            limit = newLimit;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+
+    //reducePermits는 protected 라서 열어준다
+    static final class ResizableSemaphore extends Semaphore {
+
+        ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package study.datajpa.config;
+
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+//auditor(createdBy/lastModifiedBy)를 요청마다 한번만 만든다. 요청 밖(배치, 테스트)에서는 애플리케이션 단위 id를 쓴다
+public class RequestCachedAuditorAware implements AuditorAware<String> {
+
+    private static final String ATTRIBUTE = RequestCachedAuditorAware.class.getName() + ".auditor";
+
+    private final String systemAuditor = newId();
+
+    @Override
+    public Optional<String> getCurrentAuditor() {
+        return Optional.of(currentAuditor());
+    }
+
+    //엔티티 리스너는 Optional 없이 바로 쓴다
+    public String currentAuditor() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return systemAuditor;
+        }
+        String auditor = (String) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (auditor == null) {
+            auditor = newId();
+            attributes.setAttribute(ATTRIBUTE, auditor, RequestAttributes.SCOPE_REQUEST);
+        }
+        return auditor;
+    }
+
+    //UUID.randomUUID()는 SecureRandom 을 쓰므로 경합이 생긴다. 식별용이니 ThreadLocalRandom 으로 충분하다
+    private static String newId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+}
@@ -0,0 +1,43 @@
+package study.datajpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.MigrationInfo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+ * 스키마는 Flyway(db/migration/V*__*.sql)가 관리하고 Hibernate는 ddl-auto=validate 로 매핑만 확인한다.
+ * datajpa.schema.mode
+ * - migrate  : 적용 안 된 migration 을 실행한다 (로컬/테스트, 배포 파이프라인의 migration 단계)
+ * - validate : DDL 없이 적용 이력만 확인한다. 적용 안 된 migration 이 있으면 기동 실패 (운영)
+ * datajpa.schema.clean-on-start : 기동할 때 모든 객체를 지우고 다시 만든다 (테스트 격리용, 운영에서는 켜지 않는다)
+ * 이력 테이블이 없는 기존 스키마(ddl-auto: create 시절)는 baseline 하지 않는다. hibernate_sequence 를 쓰고 member_seq / version 컬럼 / 인덱스가 없어
+ * V1 로 기록하면 migration 을 건너뛴 채 Hibernate validate 에서 엉뚱하게 실패한다. Flyway 가 non-empty schema 로 바로 기동을 멈추게 둔다
+ * ddl-auto: create 는 기동마다 데이터를 지웠으므로 옮길 데이터가 없다 -> 스키마를 비우고(flyway clean 또는 drop) migrate 로 새로 만든다
+ */
+@Slf4j
+@Configuration
+public class SchemaMigrationConfig {
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(@Value("${datajpa.schema.mode:migrate}") String mode,
+                                                           @Value("${datajpa.schema.clean-on-start:false}") boolean cleanOnStart) {
+        if (!"migrate".equals(mode) && !"validate".equals(mode)) {
+            throw new IllegalArgumentException("datajpa.schema.mode must be migrate or validate : " + mode);
+        }
+        return flyway -> {
+            if (cleanOnStart) {
+                flyway.clean();
+            }
+            if ("validate".equals(mode)) {
+                flyway.validate();
+                MigrationInfo current = flyway.info().current();
+                log.info("schema validated at version {}", current == null ? "<empty>" : current.getVersion());
+                return;
+            }
+            flyway.migrate();
+        };
+    }
+}
@@ -2,27 +2,49 @@ package study.datajpa.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberSearchCondition;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.AsyncMemberRepository;
 import study.datajpa.repository.MemberRepository;
+import study.datajpa.service.MemberExportService;
 
 import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_KEYSET_SIZE = 2000;
+
     private final MemberRepository memberRepository;
+    private final MemberExportService memberExportService;
+    private final AsyncMemberRepository asyncMemberRepository;
 
     @GetMapping("/members")
-    public Page<Member> pageList(Pageable pageable){
-        return memberRepository.findAll(pageable);
+    public Page<Member> pageList(Pageable pageable, @RequestParam(defaultValue = "false") boolean estimated){
+        return estimated
+                ? memberRepository.findAllEstimatedCount(pageable)
+                : memberRepository.findAllCachedCount(pageable);
     }
 
     @GetMapping("/members2")
@@ -34,8 +56,59 @@ public class MemberController {
     public Page<MemberDto>  pageListDto(Pageable pageable){
 //        return memberRepository.findAll(pageable)
 //                 .map(m -> new MemberDto(m.getId(), m.getUserName(), "No team"));
-        return memberRepository.findAll(pageable)
-                .map(MemberDto::new);
+        return memberRepository.findAllProjected(MemberDto.class, pageable);
+    }
+
+    //offset 대신 마지막으로 받은 (userName, id)를 커서로 넘긴다 -> 깊은 페이지도 첫 페이지와 비용이 같다
+    @GetMapping("/members/keyset")
+    public Slice<Member> keysetList(@RequestParam(required = false) String lastUserName,
+                                    @RequestParam(required = false) Long lastId,
+                                    @RequestParam(defaultValue = "10") int size){
+        return memberRepository.findByKeyset(lastUserName, lastId, Math.min(Math.max(size, 1), MAX_KEYSET_SIZE));
+    }
+
+    //?userNamePrefix=user1&ageGoe=10&ageLoe=30&teamName=teamA&lastUserName=...&lastId=...&size=...
+    //userNamePrefix가 있으면 마지막 항목의 (userName, id), 없으면 id를 커서로 넘긴다
+    @GetMapping("/members/search")
+    public Slice<MemberDto> search(MemberSearchCondition condition,
+                                   @RequestParam(required = false) String lastUserName,
+                                   @RequestParam(required = false) Long lastId,
+                                   @RequestParam(defaultValue = "10") int size){
+        return memberRepository.search(condition, lastUserName, lastId, Math.min(Math.max(size, 1), MAX_KEYSET_SIZE));
+    }
+
+    //서로 독립적인 조회 3개를 동시에 실행한다 -> 응답 시간은 합이 아니라 가장 느린 조회 하나
+    @GetMapping("/members/summary")
+    public Map<String, Object> summary(@RequestParam(defaultValue = "10") int age,
+                                       @RequestParam(required = false) List<String> names){
+        CompletableFuture<Long> total = asyncMemberRepository.count();
+        CompletableFuture<Page<MemberDto>> sameAge = asyncMemberRepository.findByAge(age, PageRequest.of(0, 10))
+                .thenApply(page -> page.map(MemberDto::new));
+        CompletableFuture<List<MemberDto>> named = names == null || names.isEmpty()
+                ? CompletableFuture.completedFuture(Collections.emptyList())
+                : asyncMemberRepository.findByNames(names)
+                        .thenApply(members -> members.stream().map(MemberDto::new).collect(Collectors.toList()));
+        CompletableFuture.allOf(total, sameAge, named).join();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("total", total.join());
+        result.put("sameAge", sameAge.join());
+        result.put("named", named.join());
+        return result;
+    }
+
+    //전체 회원을 읽는 대로 response에 써서 내보낸다 (format = ndjson | csv)
+    @GetMapping("/members/export")
+    public void export(@RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response) throws IOException {
+        MemberExportService.Format exportFormat;
+        try {
+            exportFormat = MemberExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unknown export format : " + format);
+        }
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        memberExportService.export(exportFormat, response.getWriter());
     }
 
 //    @PostConstruct
@@ -44,6 +117,6 @@ public class MemberController {
         for (int i = 0; i < 100; i++) {
             memberList.add(new Member("user"+i, i+10));
         }
-        memberRepository.saveAll(memberList);
+        memberRepository.persistInBatch(memberList);
     }
 }
@@ -0,0 +1,160 @@
+package study.datajpa.controller;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.PoolStats;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.monitor.LatencyHistogram;
+import study.datajpa.monitor.PoolMetrics;
+import study.datajpa.monitor.RepositoryMetrics;
+import study.datajpa.monitor.SlowQueryLog;
+import study.datajpa.repository.NameFilterTable;
+import study.datajpa.repository.SpecificationPlanCache;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/stats")
+@RequiredArgsConstructor
+public class StatsController {
+
+    private final EntityManagerFactory emf;
+    private final SpecificationPlanCache specificationPlanCache;
+    private final PoolMetrics poolMetrics;
+    private final RepositoryMetrics repositoryMetrics;
+    private final SlowQueryLog slowQueryLog;
+    private final NameFilterTable nameFilterTable;
+
+    //2차 캐시 / 쿼리 캐시 region별 hit, miss
+    @GetMapping("/cache")
+    public Map<String, Object> cache(){
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("secondLevelCacheHit", statistics.getSecondLevelCacheHitCount());
+        result.put("secondLevelCacheMiss", statistics.getSecondLevelCacheMissCount());
+        result.put("secondLevelCachePut", statistics.getSecondLevelCachePutCount());
+        result.put("queryCacheHit", statistics.getQueryCacheHitCount());
+        result.put("queryCacheMiss", statistics.getQueryCacheMissCount());
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            Map<String, Object> regionStats = new LinkedHashMap<>();
+            regionStats.put("hit", region.getHitCount());
+            regionStats.put("miss", region.getMissCount());
+            regionStats.put("put", region.getPutCount());
+            regionStats.put("size", region.getElementCountInMemory());
+            regions.put(regionName, regionStats);
+        }
+        result.put("regions", regions);
+        return result;
+    }
+
+    //Specification 번역 캐시와 Hibernate HQL query plan cache의 hit, miss
+    @GetMapping("/specifications")
+    public Map<String, Object> specifications(){
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("specPlanHit", specificationPlanCache.getHitCount());
+        result.put("specPlanMiss", specificationPlanCache.getMissCount());
+        result.put("specPlanUncacheable", specificationPlanCache.getUncacheableCount());
+        result.put("specPlanSize", specificationPlanCache.size());
+        result.put("queryPlanCacheHit", statistics.getQueryPlanCacheHitCount());
+        result.put("queryPlanCacheMiss", statistics.getQueryPlanCacheMissCount());
+        return result;
+    }
+
+    //HQL query plan cache 설정과 hit, miss. 실행된 서로 다른 HQL 개수가 계속 늘면 plan cache가 오염되고 있는 것
+    //findByNames 가 in 절 / 임시 테이블 중 어느 쪽으로 실행됐는지
+    @GetMapping("/query-plans")
+    public Map<String, Object> queryPlans(){
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Object> properties = emf.getProperties();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("planCacheMaxSize", properties.getOrDefault("hibernate.query.plan_cache_max_size", 2048));
+        result.put("inClauseParameterPadding", properties.getOrDefault("hibernate.query.in_clause_parameter_padding", false));
+        result.put("queryPlanCacheHit", statistics.getQueryPlanCacheHitCount());
+        result.put("queryPlanCacheMiss", statistics.getQueryPlanCacheMissCount());
+        result.put("distinctQueries", statistics.getQueries().length);
+
+        Map<String, Object> inList = new LinkedHashMap<>();
+        inList.put("tempTableThreshold", nameFilterTable.getThreshold());
+        inList.put("inClause", nameFilterTable.getInClauseCount());
+        inList.put("tempTable", nameFilterTable.getTempTableCount());
+        inList.put("largestList", nameFilterTable.getLargestList());
+        result.put("findByNames", inList);
+        return result;
+    }
+
+    //Hikari pool 상태와 커넥션 획득 대기 / 점유 시간 분포, repository 메소드별 커넥션 점유 시간
+    @GetMapping("/pool")
+    public Map<String, Object> pool(){
+        Map<String, Object> pools = new LinkedHashMap<>();
+        for (HikariDataSource dataSource : poolMetrics.getDataSources()) {
+            String poolName = dataSource.getPoolName();
+            PoolMetrics.Pool pool = poolName == null ? null : poolMetrics.getPool(poolName);
+            if (pool == null) {
+                continue;
+            }
+            PoolStats stats = pool.getStats();
+            Map<String, Object> poolStats = new LinkedHashMap<>();
+            poolStats.put("active", stats.getActiveConnections());
+            poolStats.put("idle", stats.getIdleConnections());
+            poolStats.put("pending", stats.getPendingThreads());
+            poolStats.put("total", stats.getTotalConnections());
+            poolStats.put("maximumPoolSize", dataSource.getHikariConfigMXBean().getMaximumPoolSize());
+            poolStats.put("timeouts", pool.getTimeouts());
+            poolStats.put("acquire", pool.getAcquire().snapshot().toMap());
+            poolStats.put("usage", pool.getUsage().snapshot().toMap());
+            pools.put(poolName, poolStats);
+        }
+
+        Map<String, Object> holdByMethod = new LinkedHashMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : poolMetrics.getHoldByMethod().entrySet()) {
+            holdByMethod.put(entry.getKey(), entry.getValue().snapshot().toMap());
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("pools", pools);
+        result.put("holdByMethod", holdByMethod);
+        return result;
+    }
+
+    //repository 메소드별 호출 수, 실패 수, 평균 row 수, latency 분포 (이름순)
+    @GetMapping("/repositories")
+    public Map<String, Object> repositories(){
+        Map<String, Object> result = new TreeMap<>();
+        for (Map.Entry<String, RepositoryMetrics.MethodStats> entry : repositoryMetrics.getMethods().entrySet()) {
+            RepositoryMetrics.MethodStats stats = entry.getValue();
+            Map<String, Object> methodStats = new LinkedHashMap<>();
+            methodStats.put("calls", stats.getCalls());
+            methodStats.put("errors", stats.getErrors());
+            methodStats.put("rows", stats.getRows());
+            methodStats.put("rowsPerCall", stats.getCalls() == 0 ? 0 : (double) stats.getRows() / stats.getCalls());
+            methodStats.put("latency", stats.getLatency().snapshot().toMap());
+            result.put(entry.getKey(), methodStats);
+        }
+        return result;
+    }
+
+    //datajpa.slow-query.threshold 를 넘은 SQL (바인딩 값 포함), 최근 것부터
+    @GetMapping("/slow-queries")
+    public List<SlowQueryLog.SlowQuery> slowQueries(){
+        return slowQueryLog.recent();
+    }
+}
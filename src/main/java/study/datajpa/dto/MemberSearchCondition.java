@@ -0,0 +1,13 @@
+package study.datajpa.dto;
+
+import lombok.Data;
+
+//비어있는 조건은 where 절에서 빠진다
+@Data
+public class MemberSearchCondition {
+
+    private String userNamePrefix;
+    private Integer ageGoe;
+    private Integer ageLoe;
+    private String teamName;
+}
@@ -1,27 +1,28 @@
 package study.datajpa.entity;
 
 import lombok.Getter;
-import lombok.Setter;
-import org.springframework.data.annotation.CreatedBy;
-import org.springframework.data.annotation.CreatedDate;
-import org.springframework.data.annotation.LastModifiedBy;
-import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.Column;
-import javax.persistence.EntityListeners;
 import javax.persistence.MappedSuperclass;
 import java.time.LocalDateTime;
 
-@EntityListeners(AuditingEntityListener.class)
 @MappedSuperclass
 @Getter
 public class BaseEntity extends BaseTimeEntity{
 
-    @CreatedBy
     @Column(updatable = false)
     private String createdBy;
 
-    @LastModifiedBy
     private String lastModifiedBy;
+
+    void markCreated(LocalDateTime now, String auditor) {
+        markCreated(now);
+        this.createdBy = auditor;
+        this.lastModifiedBy = auditor;
+    }
+
+    void markModified(LocalDateTime now, String auditor) {
+        markModified(now);
+        this.lastModifiedBy = auditor;
+    }
 }
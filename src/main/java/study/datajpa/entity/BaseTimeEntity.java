@@ -1,23 +1,27 @@
 package study.datajpa.entity;
 
 import lombok.Getter;
-import org.springframework.data.annotation.CreatedDate;
-import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.Column;
 import javax.persistence.EntityListeners;
 import javax.persistence.MappedSuperclass;
 import java.time.LocalDateTime;
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners(FastAuditingEntityListener.class)
 @MappedSuperclass
 @Getter
 public class BaseTimeEntity {
-    @CreatedDate
     @Column(updatable = false)
     private LocalDateTime createdDate;
 
 
-    @LastModifiedDate
     private LocalDateTime lastModifiedDate;
-}
\ No newline at end of file
+
+    void markCreated(LocalDateTime now) {
+        this.createdDate = now;
+        this.lastModifiedDate = now;
+    }
+
+    void markModified(LocalDateTime now) {
+        this.lastModifiedDate = now;
+    }
+}
@@ -0,0 +1,52 @@
+package study.datajpa.entity;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import study.datajpa.config.RequestCachedAuditorAware;
+
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import java.time.Clock;
+import java.time.LocalDateTime;
+
+/*
+ * Spring Data AuditingEntityListener 대신 쓴다.
+ * @CreatedDate 등의 필드를 리플렉션으로 찾아 값을 넣지 않고, 엔티티의 package-private 메소드를 직접 호출한다.
+ * Hibernate 가 SpringBeanContainer 로 생성하면 Clock, auditor 를 주입받고, 아니면 기본값을 쓴다.
+ */
+public class FastAuditingEntityListener {
+
+    private final Clock clock;
+    private final RequestCachedAuditorAware auditorAware;
+
+    public FastAuditingEntityListener() {
+        this(Clock.systemDefaultZone(), new RequestCachedAuditorAware());
+    }
+
+    @Autowired
+    public FastAuditingEntityListener(Clock clock, RequestCachedAuditorAware auditorAware) {
+        this.clock = clock;
+        this.auditorAware = auditorAware;
+    }
+
+    @PrePersist
+    public void prePersist(Object target) {
+        if (target instanceof BaseEntity) {
+            ((BaseEntity) target).markCreated(LocalDateTime.now(clock), auditorAware.currentAuditor());
+        } else if (target instanceof BaseTimeEntity) {
+            ((BaseTimeEntity) target).markCreated(LocalDateTime.now(clock));
+        } else if (target instanceof JpaBaseEntity) {
+            ((JpaBaseEntity) target).markCreated(LocalDateTime.now(clock));
+        }
+    }
+
+    @PreUpdate
+    public void preUpdate(Object target) {
+        if (target instanceof BaseEntity) {
+            ((BaseEntity) target).markModified(LocalDateTime.now(clock), auditorAware.currentAuditor());
+        } else if (target instanceof BaseTimeEntity) {
+            ((BaseTimeEntity) target).markModified(LocalDateTime.now(clock));
+        } else if (target instanceof JpaBaseEntity) {
+            ((JpaBaseEntity) target).markModified(LocalDateTime.now(clock));
+        }
+    }
+}
@@ -5,14 +5,14 @@ import lombok.Getter;
 import lombok.Setter;
 
 import javax.persistence.Column;
+import javax.persistence.EntityListeners;
 import javax.persistence.MappedSuperclass;
-import javax.persistence.PrePersist;
-import javax.persistence.PreUpdate;
 import java.time.LocalDateTime;
 
 @Getter
 @Setter
 @MappedSuperclass
+@EntityListeners(FastAuditingEntityListener.class)
 public class JpaBaseEntity {
 
     @Column(updatable= false)
@@ -23,16 +23,13 @@ public class JpaBaseEntity {
     private LocalDateTime lastModifiedDate;
     private String updatedBy;
 
-    @PrePersist
-    public void prePersist(){
-        LocalDateTime now = LocalDateTime.now();
+    void markCreated(LocalDateTime now){
         createdDate = now;
         lastModifiedDate = now;
     }
 
-    @PreUpdate
-    public void preUpdate(){
-        lastModifiedDate = LocalDateTime.now();
+    void markModified(LocalDateTime now){
+        lastModifiedDate = now;
     }
 
 }
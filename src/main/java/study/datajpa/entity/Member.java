@@ -2,6 +2,10 @@ package study.datajpa.entity;
 
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
@@ -15,11 +19,22 @@ import javax.persistence.*;
         query = "select m from Member m where m.userName = :userName"
 )
 @NamedEntityGraph(name = "Member.all", attributeNodes = @NamedAttributeNode("team"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member")
+//MemberSpec 검색 조건용 인덱스. userName은 keyset 정렬(userName, id)까지 같이 탄다
+@Table(indexes = {
+        @Index(name = "idx_member_user_name_id", columnList = "userName, MEMBER_ID"),
+        @Index(name = "idx_member_age", columnList = "age"),
+        @Index(name = "idx_member_team_id", columnList = "TEAM_ID")
+})
 public class Member extends BaseEntity{
 //        extends JpaBaseEntity{
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "member_seq")
+    @GenericGenerator(name = "member_seq", strategy = "study.datajpa.entity.id.BlockSequenceIdGenerator",
+            parameters = {@Parameter(name = "sequence_name", value = "member_seq"),
+                    @Parameter(name = "increment_size", value = "1000")})
     @Column(name= "MEMBER_ID")
     private Long id;
 
@@ -31,6 +46,11 @@ public class Member extends BaseEntity{
     @JoinColumn(name = "TEAM_ID")
     private Team team;
 
+    //낙관적 락. 동시에 수정하면 나중 커밋이 OptimisticLockingFailureException -> service.OptimisticLockRetry
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     public Member(String userName) {
         this.userName = userName;
     }
@@ -3,6 +3,10 @@ package study.datajpa.entity;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -11,15 +15,24 @@ import java.util.List;
 @Entity
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Getter
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")
 public class Team extends BaseEntity{
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "team_seq")
+    @GenericGenerator(name = "team_seq", strategy = "study.datajpa.entity.id.BlockSequenceIdGenerator",
+            parameters = {@Parameter(name = "sequence_name", value = "team_seq"),
+                    @Parameter(name = "increment_size", value = "1000")})
     @Column(name = "TEAM_ID")
     private Long id;
 
     private String teamName;
 
+    @Version
+    private Long version;
+
     @OneToMany(mappedBy = "team")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team-members")
     private List<Member> members = new ArrayList<>();
 
     public Team(String teamName) {
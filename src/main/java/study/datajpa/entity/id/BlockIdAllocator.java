@@ -0,0 +1,54 @@
+package study.datajpa.entity.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+//DB에서 blockSize 크기의 id 블록을 예약해두고 CAS로 나눠준다. 블록 안에서는 락이 없다
+//블록이 바닥나면 한 스레드만 sequence를 호출해 새 블록을 넣고, 나머지는 기다렸다가 그 블록에서 받는다
+public class BlockIdAllocator {
+
+    private final int blockSize;
+    private final AtomicReference<Block> current = new AtomicReference<>();
+    private final Object refillLock = new Object();
+
+    public BlockIdAllocator(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be positive : " + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    //blockStart : 새 블록의 시작 값을 가져온다 (sequence 호출). 블록이 바닥났을 때 한 번만 호출된다
+    public long next(LongSupplier blockStart) {
+        while (true) {
+            Block block = current.get();
+            if (block != null) {
+                long id = block.next.getAndIncrement();
+                if (id < block.end) {
+                    return id;
+                }
+            }
+
+            synchronized (refillLock) {
+                //기다리는 동안 다른 스레드가 새 블록을 넣었으면 sequence를 부르지 않고 그 블록에서 다시 받는다
+                if (current.get() == block) {
+                    Block fresh = new Block(blockStart.getAsLong(), blockSize);
+                    long id = fresh.next.getAndIncrement();
+                    current.set(fresh);
+                    return id;
+                }
+            }
+        }
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, int size) {
+            this.next = new AtomicLong(start);
+            this.end = start + size;
+        }
+    }
+}
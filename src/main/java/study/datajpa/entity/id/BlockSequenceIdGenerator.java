@@ -0,0 +1,41 @@
+package study.datajpa.entity.id;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/*
+ * sequence는 increment_size(블록 크기) 만큼 증가하고, nextval 값 v 에서 [v, v + increment_size) 를 이 JVM이 쓴다.
+ * 노드마다 다른 블록을 받으므로 여러 서버에서도 겹치지 않는다.
+ * 사용 : @GenericGenerator(strategy = "study.datajpa.entity.id.BlockSequenceIdGenerator", parameters = sequence_name, increment_size)
+ */
+public class BlockSequenceIdGenerator extends SequenceStyleGenerator {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1000;
+
+    private BlockIdAllocator allocator;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        //DDL(increment by)은 pooled 설정을 그대로 쓰고, 값 분배는 optimizer 대신 allocator가 한다
+        params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED.getExternalName());
+        if (!params.containsKey(INCREMENT_PARAM)) {
+            params.setProperty(INCREMENT_PARAM, String.valueOf(DEFAULT_BLOCK_SIZE));
+        }
+        super.configure(type, params, serviceRegistry);
+        allocator = new BlockIdAllocator(ConfigurationHelper.getInt(INCREMENT_PARAM, params, DEFAULT_BLOCK_SIZE));
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        return allocator.next(() -> getDatabaseStructure().buildCallback(session).getNextValue().makeValue().longValue());
+    }
+}
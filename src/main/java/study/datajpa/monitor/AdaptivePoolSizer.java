@@ -0,0 +1,84 @@
+package study.datajpa.monitor;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.PoolStats;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import study.datajpa.config.RepositoryExecutor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//직전 주기 동안의 커넥션 획득 대기 시간(p95)을 보고 pool 크기를 minSize ~ maxSize 안에서 조정한다
+//maximumPoolSize는 실행 중에도 HikariConfigMXBean으로 바꿀 수 있다
+//바꾼 뒤에는 RepositoryExecutor의 동시 실행 수도 가장 큰 pool 크기에 맞춘다 -> 풀보다 많은 작업이 커넥션을 기다리며 줄 서지 않게
+@Slf4j
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "datajpa.pool.adaptive", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class AdaptivePoolSizer {
+
+    private final PoolMetrics poolMetrics;
+    private final PoolSizingProperties properties;
+    private final ObjectProvider<RepositoryExecutor> repositoryExecutor;
+    private final Map<String, LatencyHistogram.Snapshot> previous = new ConcurrentHashMap<>();
+
+    @Scheduled(fixedDelayString = "${datajpa.pool.adaptive.interval-millis:10000}")
+    public void adjust() {
+        boolean resized = false;
+        for (HikariDataSource dataSource : poolMetrics.getDataSources()) {
+            String poolName = dataSource.getPoolName();
+            PoolMetrics.Pool pool = poolName == null ? null : poolMetrics.getPool(poolName);
+            if (pool == null) {
+                //아직 첫 커넥션을 가져가지 않은 pool
+                continue;
+            }
+            LatencyHistogram.Snapshot current = pool.getAcquire().snapshot();
+            LatencyHistogram.Snapshot last = previous.put(poolName, current);
+            if (last == null) {
+                continue;
+            }
+            if (adjust(dataSource.getHikariConfigMXBean(), poolName, current.minus(last), pool.getStats())) {
+                resized = true;
+            }
+        }
+        if (resized) {
+            int largest = poolMetrics.getDataSources().stream()
+                    .mapToInt(dataSource -> dataSource.getHikariConfigMXBean().getMaximumPoolSize())
+                    .max().getAsInt();
+            repositoryExecutor.ifAvailable(executor -> executor.resize(largest));
+        }
+    }
+
+    //pool 크기를 바꿨으면 true
+    boolean adjust(HikariConfigMXBean config, String poolName, LatencyHistogram.Snapshot window, PoolStats stats) {
+        int size = config.getMaximumPoolSize();
+        long p95 = window.percentileNanos(0.95);
+
+        int target = size;
+        if (p95 > properties.getGrowWait().toNanos() || stats.getPendingThreads() > 0) {
+            target = Math.min(size + properties.getStep(), properties.getMaxSize());
+        } else if (p95 < properties.getShrinkWait().toNanos() && stats.getActiveConnections() <= size / 2) {
+            target = Math.max(size - properties.getStep(), properties.getMinSize());
+        }
+
+        if (target != size) {
+            log.info("pool {} maximumPoolSize {} -> {} (acquire p95 {}us, active {}, pending {})", poolName, size, target,
+                    p95 / 1000, stats.getActiveConnections(), stats.getPendingThreads());
+            config.setMaximumPoolSize(target);
+            //minimumIdle이 max 보다 크면 줄어들지 않는다
+            if (config.getMinimumIdle() > target) {
+                config.setMinimumIdle(target);
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,26 @@
+package study.datajpa.monitor;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+//pool이 시작되기 전(첫 getConnection 전)에 metrics tracker를 붙인다
+//p6spy가 DataSource를 감싸기 전의 HikariDataSource를 받아야 하므로 초기화 전에 처리한다
+@Component
+public class HikariMetricsPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<PoolMetrics> poolMetrics;
+
+    public HikariMetricsPostProcessor(ObjectProvider<PoolMetrics> poolMetrics) {
+        this.poolMetrics = poolMetrics;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource) {
+            poolMetrics.getObject().register((HikariDataSource) bean);
+        }
+        return bean;
+    }
+}
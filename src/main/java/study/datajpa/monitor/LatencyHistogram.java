@@ -0,0 +1,99 @@
+package study.datajpa.monitor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//나노초 latency를 2의 거듭제곱 구간(bucket)으로 센다. record는 객체를 만들지 않는다
+//bucket i 는 [2^(i-1), 2^i) ns. 백분위는 bucket의 상한으로 근사한다 (최대 2배 오차)
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(bucket(value));
+        totalNanos.addAndGet(value);
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy, totalNanos.get(), maxNanos.get());
+    }
+
+    static int bucket(long nanos) {
+        return Math.min(BUCKETS - Long.numberOfLeadingZeros(nanos), BUCKETS - 1);
+    }
+
+    //시점의 복사본. 이전 snapshot을 빼면 그 사이 구간의 분포가 된다
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long count;
+
+        private Snapshot(long[] counts, long totalNanos, long maxNanos) {
+            this.counts = counts;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            long sum = 0;
+            for (long c : counts) {
+                sum += c;
+            }
+            this.count = sum;
+        }
+
+        //max는 구간별로 알 수 없어 누적값을 그대로 둔다
+        public Snapshot minus(Snapshot previous) {
+            long[] delta = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                delta[i] = counts[i] - previous.counts[i];
+            }
+            return new Snapshot(delta, totalNanos - previous.totalNanos, maxNanos);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long percentileNanos(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(count * percentile);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= Math.max(rank, 1)) {
+                    return i == 0 ? 0 : i == BUCKETS - 1 ? maxNanos : Math.min(1L << i, maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("count", count);
+            result.put("meanMicros", count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos / count));
+            result.put("p50Micros", TimeUnit.NANOSECONDS.toMicros(percentileNanos(0.50)));
+            result.put("p95Micros", TimeUnit.NANOSECONDS.toMicros(percentileNanos(0.95)));
+            result.put("p99Micros", TimeUnit.NANOSECONDS.toMicros(percentileNanos(0.99)));
+            result.put("maxMicros", TimeUnit.NANOSECONDS.toMicros(maxNanos));
+            return result;
+        }
+    }
+}
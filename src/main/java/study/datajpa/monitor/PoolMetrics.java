@@ -0,0 +1,109 @@
+package study.datajpa.monitor;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Hikari pool 별 커넥션 획득 대기 시간, 사용(점유) 시간, timeout 수
+//HikariMetricsPostProcessor가 모든 HikariDataSource에 붙인다
+@Component
+public class PoolMetrics implements MetricsTrackerFactory {
+
+    private static final String OUTSIDE_REPOSITORY = "(outside repository)";
+
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+    private final List<HikariDataSource> dataSources = new CopyOnWriteArrayList<>();
+    //커넥션을 반납할 때 실행중이던 repository 메소드별 점유 시간
+    private final Map<String, LatencyHistogram> holdByMethod = new ConcurrentHashMap<>();
+
+    void register(HikariDataSource dataSource) {
+        dataSource.setMetricsTrackerFactory(this);
+        dataSources.add(dataSource);
+    }
+
+    public List<HikariDataSource> getDataSources() {
+        return dataSources;
+    }
+
+    public Pool getPool(String poolName) {
+        return pools.get(poolName);
+    }
+
+    public Map<String, Pool> getPools() {
+        return pools;
+    }
+
+    public Map<String, LatencyHistogram> getHoldByMethod() {
+        return holdByMethod;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        Pool pool = new Pool(poolStats);
+        pools.put(poolName, pool);
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                pool.acquire.record(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                long nanos = TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis);
+                pool.usage.record(nanos);
+                String method = RepositoryMethodContext.current();
+                holdHistogram(method == null ? OUTSIDE_REPOSITORY : method).record(nanos);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                pool.timeouts.incrementAndGet();
+            }
+        };
+    }
+
+    private LatencyHistogram holdHistogram(String method) {
+        LatencyHistogram histogram = holdByMethod.get(method);
+        if (histogram == null) {
+            histogram = holdByMethod.computeIfAbsent(method, m -> new LatencyHistogram());
+        }
+        return histogram;
+    }
+
+    public static final class Pool {
+
+        private final PoolStats stats;
+        private final LatencyHistogram acquire = new LatencyHistogram();
+        private final LatencyHistogram usage = new LatencyHistogram();
+        private final AtomicLong timeouts = new AtomicLong();
+
+        private Pool(PoolStats stats) {
+            this.stats = stats;
+        }
+
+        public PoolStats getStats() {
+            return stats;
+        }
+
+        public LatencyHistogram getAcquire() {
+            return acquire;
+        }
+
+        public LatencyHistogram getUsage() {
+            return usage;
+        }
+
+        public long getTimeouts() {
+            return timeouts.get();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package study.datajpa.monitor;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("datajpa.pool.adaptive")
+public class PoolSizingProperties {
+
+    //true 면 AdaptivePoolSizer가 주기적으로 maximumPoolSize를 조정한다
+    private boolean enabled = false;
+
+    //조정 범위
+    private int minSize = 5;
+    private int maxSize = 30;
+
+    //한번에 늘리고 줄이는 커넥션 수
+    private int step = 2;
+
+    //구간 p95 획득 대기 시간이 이보다 길면 늘린다
+    private Duration growWait = Duration.ofMillis(5);
+
+    //이보다 짧고 사용중인 커넥션이 절반 이하면 줄인다
+    private Duration shrinkWait = Duration.ofMillis(1);
+}
@@ -0,0 +1,8 @@
+package study.datajpa.monitor;
+
+public class QueryBudgetExceededException extends RuntimeException {
+
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
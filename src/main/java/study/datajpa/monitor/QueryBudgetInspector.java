@@ -0,0 +1,35 @@
+package study.datajpa.monitor;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QueryBudgetInspector {
+
+    private final QueryBudgetProperties properties;
+
+    //repository 호출이 끝날 때마다 확인한다
+    public void checkBudget(QueryCount count) {
+        if (properties.isFailOnExceed() && count.getTotal() > properties.getPerRequest()) {
+            throw new QueryBudgetExceededException("SQL budget exceeded : " + count.getTotal()
+                    + " > " + properties.getPerRequest() + " " + count.getCountByMethod());
+        }
+    }
+
+    //범위(요청)가 끝나면 예산 초과와 N+1 의심 SQL을 경고로 남긴다
+    public void report(String scope, QueryCount count) {
+        if (count.getTotal() > properties.getPerRequest()) {
+            log.warn("[{}] executed {} statements (budget {}) {}", scope, count.getTotal(),
+                    properties.getPerRequest(), count.getCountByMethod());
+        }
+        Map<String, Integer> repeated = count.findRepeatedSelects(properties.getRepeatedSelectThreshold());
+        for (Map.Entry<String, Integer> entry : repeated.entrySet()) {
+            log.warn("[{}] possible N+1 : {} times -> {}", scope, entry.getValue(), entry.getKey());
+        }
+    }
+}
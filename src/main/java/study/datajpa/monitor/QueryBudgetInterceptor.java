@@ -0,0 +1,30 @@
+package study.datajpa.monitor;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+//HTTP 요청 단위로 SQL 수를 센다
+@Component
+@RequiredArgsConstructor
+public class QueryBudgetInterceptor implements HandlerInterceptor {
+
+    private final QueryBudgetInspector queryBudgetInspector;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryCountHolder.start();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        QueryCount count = QueryCountHolder.stop();
+        if (count != null) {
+            queryBudgetInspector.report(request.getMethod() + " " + request.getRequestURI(), count);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package study.datajpa.monitor;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("datajpa.query-budget")
+public class QueryBudgetProperties {
+
+    //HTTP 요청 하나에서 허용하는 SQL 수
+    private int perRequest = 50;
+
+    //같은 select 가 이 횟수 이상 반복되면 N+1 경고
+    private int repeatedSelectThreshold = 5;
+
+    //true 면 예산을 넘는 순간 QueryBudgetExceededException 을 던진다 (테스트용)
+    private boolean failOnExceed = false;
+}
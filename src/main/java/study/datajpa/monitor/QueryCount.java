@@ -0,0 +1,45 @@
+package study.datajpa.monitor;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+//하나의 범위(HTTP 요청, 테스트)에서 실행된 SQL 수
+//AsyncMemberRepository 작업도 요청의 QueryCount에 기록하므로 여러 스레드에서 기록될 수 있다
+public class QueryCount {
+
+    private static final String UNKNOWN_METHOD = "(none)";
+
+    private int total;
+    private final Map<String, Integer> countBySql = new LinkedHashMap<>();
+    private final Map<String, Integer> countByMethod = new LinkedHashMap<>();
+
+    public synchronized void record(String sql, String method) {
+        total++;
+        countBySql.merge(sql, 1, Integer::sum);
+        countByMethod.merge(method == null ? UNKNOWN_METHOD : method, 1, Integer::sum);
+    }
+
+    public synchronized int getTotal() {
+        return total;
+    }
+
+    public synchronized Map<String, Integer> getCountByMethod() {
+        return new LinkedHashMap<>(countByMethod);
+    }
+
+    //같은 select 가 파라미터(id)만 바꿔서 threshold 번 이상 실행됐다면 N+1 로 본다
+    public synchronized Map<String, Integer> findRepeatedSelects(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : countBySql.entrySet()) {
+            if (entry.getValue() >= threshold && isSelect(entry.getKey())) {
+                repeated.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return repeated;
+    }
+
+    private static boolean isSelect(String sql) {
+        return sql.trim().toLowerCase(Locale.ROOT).startsWith("select");
+    }
+}
@@ -0,0 +1,49 @@
+package study.datajpa.monitor;
+
+import java.util.function.Supplier;
+
+//현재 스레드의 QueryCount. start ~ stop 사이에 실행된 SQL만 센다
+public final class QueryCountHolder {
+
+    private static final ThreadLocal<QueryCount> CURRENT = new ThreadLocal<>();
+
+    private QueryCountHolder() {
+    }
+
+    public static QueryCount start() {
+        QueryCount count = new QueryCount();
+        CURRENT.set(count);
+        return count;
+    }
+
+    public static QueryCount get() {
+        return CURRENT.get();
+    }
+
+    public static QueryCount stop() {
+        QueryCount count = CURRENT.get();
+        CURRENT.remove();
+        return count;
+    }
+
+    //다른 스레드에서 실행할 작업의 SQL이 지금 스레드의 QueryCount에 합산되도록 감싼다
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        QueryCount count = CURRENT.get();
+        if (count == null) {
+            return task;
+        }
+        return () -> {
+            QueryCount previous = CURRENT.get();
+            CURRENT.set(count);
+            try {
+                return task.get();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package study.datajpa.monitor;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+//p6spy가 SQL 실행 후 호출한다. 빈으로 등록하면 p6spy-spring-boot-starter가 리스너로 붙여준다
+@Component
+public class QueryCountListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        QueryCount count = QueryCountHolder.get();
+        if (count != null) {
+            count.record(statementInformation.getSql(), RepositoryMethodContext.current());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package study.datajpa.monitor;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Spring Data repository 와 @Repository 클래스(MemberJpaRepository, TeamJpaRepository) 호출을 감싼다
+//호출마다 latency, row 수를 RepositoryMetrics에 남긴다
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMethodAspect {
+
+    private final QueryBudgetInspector queryBudgetInspector;
+    private final RepositoryMetrics repositoryMetrics;
+    private final Map<Class<?>, Map<Method, String>> methodNames = new ConcurrentHashMap<>();
+
+    @Around("target(org.springframework.data.repository.Repository) || @within(org.springframework.stereotype.Repository)")
+    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = methodName(joinPoint);
+        String previous = RepositoryMethodContext.enter(method);
+        long start = System.nanoTime();
+        Object result = null;
+        boolean failed = true;
+        try {
+            result = joinPoint.proceed();
+            failed = false;
+        } finally {
+            RepositoryMethodContext.exit(previous);
+            repositoryMetrics.record(method, System.nanoTime() - start, result, failed);
+        }
+
+        QueryCount count = QueryCountHolder.get();
+        if (count != null) {
+            queryBudgetInspector.checkBudget(count);
+        }
+        return result;
+    }
+
+    //"MemberRepository.findByAge" 형태. 호출마다 문자열을 만들지 않도록 캐시한다
+    private String methodName(ProceedingJoinPoint joinPoint) {
+        Class<?> targetClass = joinPoint.getTarget().getClass();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+
+        Map<Method, String> names = methodNames.get(targetClass);
+        if (names == null) {
+            names = methodNames.computeIfAbsent(targetClass, c -> new ConcurrentHashMap<>());
+        }
+        String name = names.get(method);
+        if (name == null) {
+            name = repositoryName(joinPoint.getTarget()) + "." + method.getName();
+            names.put(method, name);
+        }
+        return name;
+    }
+
+    //Spring Data repository 는 JDK 프록시라서 클래스 이름 대신 repository 인터페이스 이름을 쓴다
+    private static String repositoryName(Object target) {
+        if (target instanceof Repository) {
+            for (Class<?> type : AopProxyUtils.proxiedUserInterfaces(target)) {
+                if (Repository.class.isAssignableFrom(type)) {
+                    return type.getSimpleName();
+                }
+            }
+        }
+        return AopProxyUtils.ultimateTargetClass(target).getSimpleName();
+    }
+}
@@ -0,0 +1,29 @@
+package study.datajpa.monitor;
+
+//현재 스레드에서 실행중인 repository 메소드 이름. SQL을 어느 메소드가 실행했는지 구분할 때 쓴다
+public final class RepositoryMethodContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RepositoryMethodContext() {
+    }
+
+    //repository 안에서 다른 repository를 호출할 수 있으니 이전 값을 돌려주고 exit 에서 복구한다
+    public static String enter(String method) {
+        String previous = CURRENT.get();
+        CURRENT.set(method);
+        return previous;
+    }
+
+    public static void exit(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+}
@@ -0,0 +1,81 @@
+package study.datajpa.monitor;
+
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.BaseStream;
+
+//repository 메소드별 호출 수, 실패 수, 반환 row 수, latency 분포
+//RepositoryMethodAspect가 매 호출마다 기록하므로 처음 본 메소드가 아니면 객체를 만들지 않는다
+@Component
+public class RepositoryMetrics {
+
+    private final Map<String, MethodStats> methods = new ConcurrentHashMap<>();
+
+    public void record(String method, long elapsedNanos, Object result, boolean failed) {
+        MethodStats stats = methods.get(method);
+        if (stats == null) {
+            stats = methods.computeIfAbsent(method, m -> new MethodStats());
+        }
+        stats.latency.record(elapsedNanos);
+        stats.calls.increment();
+        if (failed) {
+            stats.errors.increment();
+        } else {
+            stats.rows.add(rowCount(result));
+        }
+    }
+
+    public Map<String, MethodStats> getMethods() {
+        return methods;
+    }
+
+    //Stream 은 호출이 끝날 때 아직 읽지 않았으므로 세지 않는다
+    static long rowCount(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof Number || result instanceof Boolean || result instanceof BaseStream) {
+            return 0;
+        }
+        return 1;
+    }
+
+    public static final class MethodStats {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package study.datajpa.monitor;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+//threshold 보다 오래 걸린 SQL을 바인딩 값까지 넣어서 최근 capacity 건만 남긴다 (오래된 것부터 덮어쓴다)
+//threshold 아래의 SQL은 문자열을 만들지 않는다
+@Slf4j
+@Component
+public class SlowQueryLog extends SimpleJdbcEventListener {
+
+    private final long thresholdNanos;
+    private final AtomicReferenceArray<SlowQuery> entries;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SlowQueryLog(@Value("${datajpa.slow-query.threshold:100ms}") Duration threshold,
+                        @Value("${datajpa.slow-query.capacity:100}") int capacity) {
+        this.thresholdNanos = threshold.toNanos();
+        this.entries = new AtomicReferenceArray<>(capacity);
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (timeElapsedNanos < thresholdNanos) {
+            return;
+        }
+        SlowQuery slowQuery = new SlowQuery(Instant.now(), TimeUnit.NANOSECONDS.toMillis(timeElapsedNanos),
+                RepositoryMethodContext.current(), statementInformation.getSqlWithValues());
+        entries.set((int) (sequence.getAndIncrement() % entries.length()), slowQuery);
+        log.warn("slow query {}ms [{}] {}", slowQuery.getElapsedMillis(), slowQuery.getMethod(), slowQuery.getSql());
+    }
+
+    //최근 것부터
+    public List<SlowQuery> recent() {
+        long last = sequence.get();
+        int size = (int) Math.min(last, entries.length());
+        List<SlowQuery> result = new ArrayList<>(size);
+        for (long i = last - 1; i >= last - size; i--) {
+            SlowQuery entry = entries.get((int) (i % entries.length()));
+            if (entry != null) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    public static final class SlowQuery {
+
+        private final Instant executedAt;
+        private final long elapsedMillis;
+        private final String method;
+        private final String sql;
+
+        SlowQuery(Instant executedAt, long elapsedMillis, String method, String sql) {
+            this.executedAt = executedAt;
+            this.elapsedMillis = elapsedMillis;
+            this.method = method;
+            this.sql = sql;
+        }
+
+        public Instant getExecutedAt() {
+            return executedAt;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import study.datajpa.config.RepositoryExecutor;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.monitor.QueryCountHolder;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+//서로 독립적인 조회를 병렬로 실행하기 위한 MemberRepository 비동기 창구
+//호출마다 별도 스레드의 별도 트랜잭션에서 실행된다 -> 돌려받은 엔티티는 준영속 상태라 지연로딩 할 수 없다
+@Component
+@RequiredArgsConstructor
+public class AsyncMemberRepository {
+
+    private final MemberRepository memberRepository;
+    private final RepositoryExecutor repositoryExecutor;
+
+    public CompletableFuture<Long> count() {
+        return supply(memberRepository::count);
+    }
+
+    public CompletableFuture<Page<Member>> findByAge(int age, Pageable pageable) {
+        return supply(() -> memberRepository.findByAge(age, pageable));
+    }
+
+    public CompletableFuture<List<Member>> findByUserNameAndAgeGreaterThan(String userName, int age) {
+        return supply(() -> memberRepository.findByUserNameAndAgeGreaterThan(userName, age));
+    }
+
+    public CompletableFuture<List<MemberDto>> findMemberDto() {
+        return supply(memberRepository::findMemberDto);
+    }
+
+    public CompletableFuture<List<Member>> findByNames(List<String> names) {
+        return supply(() -> memberRepository.findByNames(names));
+    }
+
+    public CompletableFuture<List<String>> findUserNameList() {
+        return supply(memberRepository::findUserNameList);
+    }
+
+    private <T> CompletableFuture<T> supply(Supplier<T> query) {
+        //요청의 query budget에 비동기로 실행한 SQL도 포함한다
+        return CompletableFuture.supplyAsync(QueryCountHolder.propagate(query), repositoryExecutor.getExecutor());
+    }
+}
@@ -0,0 +1,133 @@
+package study.datajpa.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.datajpa.config.RequestCachedAuditorAware;
+import study.datajpa.entity.BaseEntity;
+import study.datajpa.entity.BaseTimeEntity;
+import study.datajpa.entity.JpaBaseEntity;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * JPQL bulk update 는 엔티티 리스너를 거치지 않아서 lastModifiedDate / lastModifiedBy 가 바뀌지 않는다.
+ * "update Entity [alias] set ..." 의 set 절 앞에 감사 컬럼을 끼워 넣어서 같은 update 문 하나로 처리한다.
+ * @Version 이 있는 엔티티는 version도 올려서, bulk update 전에 읽어 둔 엔티티가 덮어쓰지 못하게 한다.
+ */
+@Component
+public class AuditedBulkUpdater {
+
+    static final String NOW_PARAM = "auditNow";
+    static final String AUDITOR_PARAM = "auditBy";
+
+    //update Member m set / update Member as m set / update Member set / update study.datajpa.entity.Member m set
+    private static final Pattern UPDATE = Pattern.compile(
+            "^\\s*update\\s+([\\w.$]+)(?:\\s+(?:as\\s+)?(?!set\\b)(\\w+))?\\s+set\\s+", Pattern.CASE_INSENSITIVE);
+
+    private final EntityManager em;
+    private final Clock clock;
+    private final RequestCachedAuditorAware auditorAware;
+    //key가 호출하는 쪽의 JPQL 문자열이라 개수를 제한한다. 넘치면 Caffeine이 덜 쓰인 항목부터 내보낸다
+    private final Cache<String, AuditedUpdate> rewritten;
+
+    public AuditedBulkUpdater(EntityManager em, Clock clock, RequestCachedAuditorAware auditorAware,
+                              @Value("${datajpa.bulk-update.rewrite-cache.max-size:256}") int maxSize) {
+        this.em = em;
+        this.clock = clock;
+        this.auditorAware = auditorAware;
+        this.rewritten = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public int executeUpdate(String jpql) {
+        return executeUpdate(jpql, Collections.emptyMap());
+    }
+
+    public int executeUpdate(String jpql, Map<String, ?> params) {
+        AuditedUpdate update = rewritten.get(jpql, this::rewrite);
+
+        Query query = em.createQuery(update.jpql);
+        params.forEach((name, value) -> query.setParameter(name, value));
+        if (update.auditDate) {
+            query.setParameter(NOW_PARAM, LocalDateTime.now(clock));
+        }
+        if (update.auditBy) {
+            query.setParameter(AUDITOR_PARAM, auditorAware.currentAuditor());
+        }
+        return query.executeUpdate();
+    }
+
+    AuditedUpdate rewrite(String jpql) {
+        Matcher matcher = UPDATE.matcher(jpql);
+        if (!matcher.find()) {
+            throw new IllegalArgumentException("not a JPQL bulk update : " + jpql);
+        }
+        EntityType<?> entity = entityType(matcher.group(1));
+        Class<?> entityType = entity.getJavaType();
+        //alias 가 없으면 property 이름만 쓴다
+        String alias = matcher.group(2) == null ? "" : matcher.group(2) + ".";
+
+        boolean auditDate = BaseTimeEntity.class.isAssignableFrom(entityType) || JpaBaseEntity.class.isAssignableFrom(entityType);
+        boolean auditBy = BaseEntity.class.isAssignableFrom(entityType);
+
+        StringBuilder audit = new StringBuilder();
+        if (auditDate) {
+            audit.append(alias).append("lastModifiedDate = :").append(NOW_PARAM).append(", ");
+        }
+        if (auditBy) {
+            audit.append(alias).append("lastModifiedBy = :").append(AUDITOR_PARAM).append(", ");
+        }
+        String version = versionAttribute(entity);
+        if (version != null) {
+            audit.append(alias).append(version).append(" = ")
+                    .append(alias).append(version).append(" + 1, ");
+        }
+        String augmented = jpql.substring(0, matcher.end()) + audit + jpql.substring(matcher.end());
+        return new AuditedUpdate(augmented, auditDate, auditBy);
+    }
+
+    private EntityType<?> entityType(String entityName) {
+        for (EntityType<?> entity : em.getMetamodel().getEntities()) {
+            if (entity.getName().equals(entityName) || entity.getJavaType().getName().equals(entityName)) {
+                return entity;
+            }
+        }
+        throw new IllegalArgumentException("unknown entity : " + entityName);
+    }
+
+    private static String versionAttribute(EntityType<?> entity) {
+        if (!entity.hasVersionAttribute()) {
+            return null;
+        }
+        for (SingularAttribute<?, ?> attribute : entity.getSingularAttributes()) {
+            if (attribute.isVersion()) {
+                return attribute.getName();
+            }
+        }
+        return null;
+    }
+
+    static final class AuditedUpdate {
+        final String jpql;
+        final boolean auditDate;
+        final boolean auditBy;
+
+        AuditedUpdate(String jpql, boolean auditDate, boolean auditBy) {
+            this.jpql = jpql;
+            this.auditDate = auditDate;
+            this.auditBy = auditBy;
+        }
+    }
+}
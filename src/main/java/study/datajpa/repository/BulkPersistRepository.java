@@ -0,0 +1,7 @@
+package study.datajpa.repository;
+
+//대량 저장용 : jdbc batch_size 단위로 flush 하면서 persist 한다
+//호출한 쪽 트랜잭션에 참여한다. 넘긴 엔티티는 저장 후 준영속 상태가 되고(id는 채워진다), 그 외에 영속성 컨텍스트에 있던 엔티티는 그대로 남는다
+public interface BulkPersistRepository<T> {
+    <S extends T> int persistInBatch(Iterable<S> entities);
+}
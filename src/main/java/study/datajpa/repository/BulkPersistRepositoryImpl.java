@@ -0,0 +1,44 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkPersistRepositoryImpl<T> implements BulkPersistRepository<T> {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int batchSize;
+
+    @Override
+    @Transactional
+    public <S extends T> int persistInBatch(Iterable<S> entities) {
+        int count = 0;
+        List<S> batch = new ArrayList<>(batchSize);
+        for (S entity : entities) {
+            em.persist(entity);
+            batch.add(entity);
+            //batch_size 만큼 모이면 insert를 보내고 방금 저장한 엔티티만 준영속으로 만들어 메모리를 일정하게 유지한다
+            if (++count % batchSize == 0) {
+                flushAndDetach(batch);
+            }
+        }
+        flushAndDetach(batch);
+        return count;
+    }
+
+    //em.clear()는 호출한 쪽이 같은 트랜잭션에서 읽어 둔 엔티티까지 떼어내므로 쓰지 않는다
+    private <S extends T> void flushAndDetach(List<S> batch) {
+        em.flush();
+        for (S entity : batch) {
+            em.detach(entity);
+        }
+        batch.clear();
+    }
+}
@@ -0,0 +1,54 @@
+package study.datajpa.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+//Page의 total count를 (count 쿼리, 파라미터) 단위로 TTL 동안 캐시한다
+//파라미터 조합마다 key가 생기므로 크기를 제한하고, 만료된 항목은 Caffeine이 지운다
+@Component
+public class CountQueryCache {
+
+    private final Cache<List<Object>, Long> cache;
+    //invalidate 도중에 계산된 count가 다시 들어가지 않도록 세대를 비교한다
+    private final AtomicLong generation = new AtomicLong();
+
+    public CountQueryCache(@Value("${datajpa.count-cache.ttl:30s}") Duration ttl,
+                           @Value("${datajpa.count-cache.max-size:1000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public long get(String countQuery, Object[] params, LongSupplier counter) {
+        List<Object> key = new ArrayList<>(params.length + 1);
+        key.add(countQuery);
+        key.addAll(Arrays.asList(params));
+
+        Long cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long gen = generation.get();
+        long count = counter.getAsLong();
+        if (generation.get() == gen) {
+            cache.put(key, count);
+        }
+        return count;
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+}
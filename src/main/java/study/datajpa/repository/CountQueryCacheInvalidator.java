@@ -0,0 +1,32 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//Member를 변경하는 repository 호출이 끝나면 count 캐시를 비운다
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class CountQueryCacheInvalidator {
+
+    private final CountQueryCache countQueryCache;
+
+    @AfterReturning("(target(study.datajpa.repository.MemberRepository) || target(study.datajpa.repository.MemberJpaRepository))"
+            + " && (execution(* save*(..)) || execution(* persist*(..)) || execution(* delete*(..)) || execution(* bulk*(..)))")
+    public void invalidate() {
+        countQueryCache.invalidate();
+        //커밋 전에 다른 트랜잭션이 이전 count를 다시 캐시할 수 있으니 트랜잭션 종료 후 한번 더 비운다
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    countQueryCache.invalidate();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package study.datajpa.repository;
+
+import study.datajpa.entity.Item;
+
+import java.util.Collection;
+
+public interface ItemRepositoryCustom {
+
+    //id가 이미 있으면 update, 없으면 insert. select 없이 MERGE 한 문장으로 처리한다
+    void upsert(Item item);
+
+    //jdbc batch_size 단위로 묶어서 보낸다. 영속성 컨텍스트에는 반영하지 않는다
+    int upsertAll(Collection<? extends Item> items);
+}
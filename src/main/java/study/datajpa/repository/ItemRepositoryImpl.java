@@ -0,0 +1,81 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.config.RequestCachedAuditorAware;
+import study.datajpa.entity.Item;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+
+@RequiredArgsConstructor
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    //created_* 는 insert 일 때만 채운다
+    private static final String UPSERT_SQL =
+            "merge into item t" +
+            " using (select cast(? as bigint) as item_id, cast(? as varchar(255)) as item_name," +
+            " cast(? as timestamp) as audit_date, cast(? as varchar(255)) as auditor) s" +
+            " on t.item_id = s.item_id" +
+            " when matched then update set t.item_name = s.item_name," +
+            " t.last_modified_date = s.audit_date, t.last_modified_by = s.auditor" +
+            " when not matched then insert" +
+            " (item_id, item_name, created_date, last_modified_date, created_by, last_modified_by)" +
+            " values (s.item_id, s.item_name, s.audit_date, s.audit_date, s.auditor, s.auditor)";
+
+    private final EntityManager em;
+    private final Clock clock;
+    private final RequestCachedAuditorAware auditorAware;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}")
+    private int batchSize;
+
+    @Override
+    @Transactional
+    public void upsert(Item item) {
+        upsertAll(Collections.singletonList(item));
+    }
+
+    @Override
+    @Transactional
+    public int upsertAll(Collection<? extends Item> items) {
+        for (Item item : items) {
+            if (item.getId() == null) {
+                throw new IllegalArgumentException("upsert requires an assigned id : " + item.getItemName());
+            }
+        }
+
+        //영속성 컨텍스트에 쌓인 변경을 먼저 내보낸다
+        em.flush();
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now(clock));
+        String auditor = auditorAware.currentAuditor();
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT_SQL)) {
+                int pending = 0;
+                for (Item item : items) {
+                    statement.setLong(1, item.getId());
+                    statement.setString(2, item.getItemName());
+                    statement.setTimestamp(3, now);
+                    statement.setString(4, auditor);
+                    statement.addBatch();
+                    if (++pending == batchSize) {
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    statement.executeBatch();
+                }
+            }
+        });
+        return items.size();
+    }
+}
@@ -1,19 +1,25 @@
 package study.datajpa.repository;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import study.datajpa.entity.Member;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
+@RequiredArgsConstructor
 public class MemberJpaRepository {
 
     @PersistenceContext
     private EntityManager em;
 
+    private final AuditedBulkUpdater auditedBulkUpdater;
+
     public Member save(Member member){
         em.persist(member);
         return member;
@@ -23,10 +29,19 @@ public class MemberJpaRepository {
         em.remove(member);
     }
 
+    //전체를 List로 올린다. 건수가 많으면 streamAll을 쓴다
     public List<Member> findAll(){
         return em.createQuery("select m from Member m", Member.class).getResultList();
     }
 
+    //fetchSize 단위로 커서를 읽는다. 트랜잭션 안에서 close 해야 하고, 읽은 엔티티는 호출하는 쪽이 주기적으로 em.clear() 한다
+    public Stream<Member> streamAll(int fetchSize){
+        return em.createQuery("select m from Member m", Member.class)
+                .setHint("org.hibernate.fetchSize", fetchSize)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream();
+    }
+
     public Optional<Member> findById(Long  id){
         Member member = em.find(Member.class, id);
         return  Optional.ofNullable(member);
@@ -66,8 +81,8 @@ public class MemberJpaRepository {
     }
 
     public int bulkAgePlus(int age){
-        return em.createQuery(
+        return auditedBulkUpdater.executeUpdate(
                 "update Member m set m.age = m.age+1 " +
-                "where m.age >= :age").setParameter("age", age).executeUpdate();
+                "where m.age >= :age", Collections.singletonMap("age", age));
     }
 }
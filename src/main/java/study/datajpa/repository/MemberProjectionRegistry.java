@@ -0,0 +1,34 @@
+package study.datajpa.repository;
+
+import org.springframework.stereotype.Component;
+import study.datajpa.dto.MemberDto;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//목록 조회용 DTO 타입별 생성자 표현식(JPQL). Member의 alias는 m 이어야 정렬(QueryUtils.applySorting)이 붙는다
+//엔티티를 거치지 않으므로 영속성 컨텍스트에 아무것도 올라가지 않는다
+@Component
+public class MemberProjectionRegistry {
+
+    private final Map<Class<?>, String> queries = new ConcurrentHashMap<>();
+
+    public MemberProjectionRegistry() {
+        register(MemberDto.class,
+                "select new study.datajpa.dto.MemberDto(m.id, m.userName, t.teamName) from Member m left join m.team t");
+        register(UserNameOnlyDto.class,
+                "select new study.datajpa.repository.UserNameOnlyDto(m.userName) from Member m");
+    }
+
+    public void register(Class<?> type, String jpql) {
+        queries.put(type, jpql);
+    }
+
+    public String selectAll(Class<?> type) {
+        String jpql = queries.get(type);
+        if (jpql == null) {
+            throw new IllegalArgumentException("No projection registered for " + type.getName());
+        }
+        return jpql;
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
@@ -12,12 +13,17 @@ import javax.persistence.LockModeType;
 import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, JpaSpecificationExecutor<Member>{
+//조회 메소드는 readOnly 트랜잭션 -> replica 설정이 켜져 있으면 replica에서 읽는다
+@Transactional(readOnly = true)
+public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, JpaSpecificationExecutor<Member>,
+        BulkPersistRepository<Member> {
 
     List<Member> findByUserNameAndAgeGreaterThan(String userName, int  age);
 
 //    @Query(name = "Member.findByUserName2")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))//query cache
     List<Member> findByUserName2(@Param("userName") String userName);
 
     @Query("select m from Member m where m.userName = :userName and m.age = :age")
@@ -29,10 +35,10 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Query("select new study.datajpa.dto.MemberDto(m.id, m.userName, t.teamName) from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
-    @Query("select m from Member m where m.userName in :names")
-    List<Member> findByNames(@Param("names") List<String> names);
+    //findByNames 는 목록 크기에 따라 in 절 / 임시 테이블 join 을 고르도록 MemberRepositoryCustom 으로 옮겼다 (NameFilterTable)
 
     List<Member> findMemberListByUserName(String userName);
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Member findMemberByUserName(String userName);
     Optional<Member> findOptionalMemberByUserName(String userName);
 
@@ -44,14 +50,18 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     , countQuery = "select count(m) from Member m where m.age = :age")
     Page<Member> findByAge2(@Param("age")int age, Pageable pageable);
 
-//    @Modifying(clearAutomatically = true) //영속성 컨텍스트를 자동으로 clear를 한다
-    @Modifying
-    @Query("update Member m set m.age = m.age+1 where m.age >= :age")
-    int bulkAgePlus(@Param("age")int age);
+    //bulkAgePlus, bulkAgePlusInRange 는 감사 컬럼을 같이 갱신하도록 MemberRepositoryCustom 으로 옮겼다 (AuditedBulkUpdater)
 
     @Query("select m from Member m")
     List<Member> findAll2();
 
+    //전체 export용 : 결과를 한번에 올리지 않고 fetchSize 단위로 커서를 읽는다. 트랜잭션 안에서 close 해야 한다
+    @QueryHints(value = {
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")})
+    @Query("select m from Member m left join fetch m.team")
+    Stream<Member> streamAllBy();
+
     @Query("select m from Member m join fetch m.team")
     List<Member> findAllMemberFetchJoin();
 
@@ -70,9 +80,20 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @QueryHints(value = @QueryHint(name = "org.hibernate.readOnly", value = "true"))
     Member findReadOnlyByUserName(String userName);
 
+    @Transactional
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     Member findLockByUserName(String userName);
 
+    //작업 큐 : 가장 오래 전에 수정된 member부터 size 건을 잠그고 가져온다. 이미 다른 트랜잭션이 잡은 row는 건너뛴다
+    //lock.timeout = -2 -> for update skip locked (H2 dialect는 지원하지 않아 일반 for update로 나간다)
+    //H2에서는 두 번째 worker가 건너뛰지 않고 잠긴 row에서 기다린다. 겹치지 않고 바로 가져가는 건 skip locked를 지원하는 DB에서만 된다
+    //처리하면 lastModifiedDate가 바뀌어 큐의 뒤로 간다
+    @Transactional
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("select m from Member m order by m.lastModifiedDate asc, m.id asc")
+    List<Member> claimNext(Pageable pageable);
+
     List<UserNameOnly>findProjectionsByUserName(@Param("userName") String userName);
 
     List<UserNameOnlyDto>findProjectDtoByUserName(@Param("userName") String userName);
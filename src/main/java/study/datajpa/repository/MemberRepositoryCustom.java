@@ -1,9 +1,47 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.datajpa.Specification.KeyedSpecification;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberSearchCondition;
 import study.datajpa.entity.Member;
 
 import java.util.List;
 
 public interface MemberRepositoryCustom {
+    //전체를 List로 올린다. 전체 export는 MemberRepository.streamAllBy 를 쓴다
     List<Member> findMemberCustom();
+
+    //keyset 페이징 : (userName, id) 커서 이후의 size 건을 조회한다. 커서가 없으면 첫 페이지
+    Slice<Member> findByKeyset(String lastUserName, Long lastId, int size);
+
+    //total count를 CountQueryCache에서 가져온다
+    Page<Member> findAllCachedCount(Pageable pageable);
+
+    Page<Member> findByAgeCachedCount(int age, Pageable pageable);
+
+    //MemberProjectionRegistry에 등록된 DTO로 바로 조회한다. total count는 CountQueryCache
+    <R> Page<R> findAllProjected(Class<R> type, Pageable pageable);
+
+    //total count를 count(*) 대신 테이블 통계의 추정치로 채운다
+    Page<Member> findAllEstimatedCount(Pageable pageable);
+
+    //findAll(spec)과 같지만 구조가 같은 Specification은 번역된 JPQL을 재사용한다
+    List<Member> findAllCached(KeyedSpecification<Member> spec);
+
+    //조건 검색 + keyset 페이징. team 이름까지 DTO로 바로 조회한다
+    //이름 prefix 조건이 있으면 (userName, id) 순서이고 커서는 (lastUserName, lastId), 없으면 id 순서이고 커서는 lastId
+    Slice<MemberDto> search(MemberSearchCondition condition, String lastUserName, Long lastId, int size);
+
+    //userName in (:names). 중복을 빼고, 목록이 길면 임시 테이블 join 으로 바꾼다
+    List<Member> findByNames(List<String> names);
+
+    //update Member m set m.age = m.age+1 where m.age >= :age (+ lastModifiedDate, lastModifiedBy)
+    //영속성 컨텍스트는 갱신하지 않는다
+    int bulkAgePlus(int age);
+
+    //MemberBulkUpdateService가 id 구간별로 나눠서 호출한다. 실행 후 영속성 컨텍스트를 비운다
+    int bulkAgePlusInRange(int age, long fromId, long toId);
 }
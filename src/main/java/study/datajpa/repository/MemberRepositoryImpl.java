@@ -1,18 +1,206 @@
 package study.datajpa.repository;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import study.datajpa.Specification.KeyedSpecification;
+import study.datajpa.Specification.MemberSpec;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberSearchCondition;
 import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private static final String COUNT_ALL = "select count(m) from Member m";
+    private static final String COUNT_BY_AGE = "select count(m) from Member m where m.age = :age";
+
     private final EntityManager em;
+    private final CountQueryCache countQueryCache;
+    private final AuditedBulkUpdater auditedBulkUpdater;
+    private final SpecificationPlanCache specificationPlanCache;
+    private final MemberProjectionRegistry projectionRegistry;
+    private final NameFilterTable nameFilterTable;
 
     @Override
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m").getResultList();
     }
+
+    @Override
+    public Slice<Member> findByKeyset(String lastUserName, Long lastId, int size) {
+        boolean hasCursor = lastUserName != null && lastId != null;
+        String jpql = "select m from Member m"
+                + (hasCursor ? " where m.userName > :userName or (m.userName = :userName and m.id > :id)" : "")
+                + " order by m.userName asc, m.id asc";
+
+        TypedQuery<Member> query = em.createQuery(jpql, Member.class);
+        if (hasCursor) {
+            query.setParameter("userName", lastUserName)
+                    .setParameter("id", lastId);
+        }
+        //다음 페이지 존재 여부를 count 쿼리 없이 알기 위해 한 건 더 조회한다
+        List<Member> content = query.setMaxResults(size + 1).getResultList();
+
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content.remove(size);
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, size, Sort.by("userName", "id")), hasNext);
+    }
+
+    @Override
+    public Page<Member> findAllCachedCount(Pageable pageable) {
+        List<Member> content = pagedQuery("select m from Member m", Member.class, pageable).getResultList();
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> countQueryCache.get(COUNT_ALL, new Object[0],
+                        () -> em.createQuery(COUNT_ALL, Long.class).getSingleResult()));
+    }
+
+    @Override
+    public Page<Member> findByAgeCachedCount(int age, Pageable pageable) {
+        List<Member> content = pagedQuery("select m from Member m where m.age = :age", Member.class, pageable)
+                .setParameter("age", age)
+                .getResultList();
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> countQueryCache.get(COUNT_BY_AGE, new Object[]{age},
+                        () -> em.createQuery(COUNT_BY_AGE, Long.class).setParameter("age", age).getSingleResult()));
+    }
+
+    @Override
+    public <R> Page<R> findAllProjected(Class<R> type, Pageable pageable) {
+        List<R> content = pagedQuery(projectionRegistry.selectAll(type), type, pageable).getResultList();
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> countQueryCache.get(COUNT_ALL, new Object[0],
+                        () -> em.createQuery(COUNT_ALL, Long.class).getSingleResult()));
+    }
+
+    @Override
+    public Page<Member> findAllEstimatedCount(Pageable pageable) {
+        List<Member> content = pagedQuery("select m from Member m", Member.class, pageable).getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            //추정치는 H2 에서만 읽는다. 다른 DB는 정확한 count
+            if (!isH2()) {
+                return em.createQuery(COUNT_ALL, Long.class).getSingleResult();
+            }
+            //H2 : 테이블 통계의 row 수 추정치. 정확하지 않지만 스캔하지 않는다. 현재 schema의 테이블만 본다
+            Number estimate = (Number) em.createNativeQuery(
+                    "select row_count_estimate from information_schema.tables" +
+                    " where table_schema = schema() and table_name = 'MEMBER'")
+                    .getSingleResult();
+            return estimate.longValue();
+        });
+    }
+
+    private boolean isH2() {
+        return em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof H2Dialect;
+    }
+
+    @Override
+    public List<Member> findAllCached(KeyedSpecification<Member> spec) {
+        return specificationPlanCache.createQuery(em, Member.class, spec).getResultList();
+    }
+
+    @Override
+    public Slice<MemberDto> search(MemberSearchCondition condition, String lastUserName, Long lastId, int size) {
+        //이름 prefix가 있으면 (userName, id) 순으로 읽는다 -> idx_member_user_name_id 가 범위와 정렬을 같이 해결한다
+        //없으면 id 순. age / team 조건만 있으면 인덱스로 거른 뒤 id로 정렬해야 하므로 조건에 맞는 행이 많으면 정렬 비용이 든다
+        boolean byUserName = StringUtils.hasText(condition.getUserNamePrefix());
+        KeyedSpecification<Member> spec = MemberSpec.search(condition).and(byUserName
+                ? MemberSpec.afterUserNameAndId(lastUserName, lastId)
+                : MemberSpec.idGreaterThan(lastId));
+        List<MemberDto> content = specificationPlanCache.createQuery(em, Member.class, MemberDto.class,
+                byUserName ? "memberDto by userName, id" : "memberDto by id", spec,
+                (criteria, root, cb) -> {
+                    //team 조건이 없을 때도 teamName을 채우기 위해 left join
+                    Join<Member, Team> team = MemberSpec.teamJoin(root, JoinType.LEFT);
+                    criteria.select(cb.construct(MemberDto.class, root.get("id"), root.get("userName"), team.get("teamName")));
+                    if (byUserName) {
+                        criteria.orderBy(cb.asc(root.get("userName")), cb.asc(root.get("id")));
+                    } else {
+                        criteria.orderBy(cb.asc(root.get("id")));
+                    }
+                })
+                .setMaxResults(size + 1)
+                .getResultList();
+
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content.remove(size);
+        }
+        Sort sort = byUserName ? Sort.by("userName", "id") : Sort.by("id");
+        return new SliceImpl<>(content, PageRequest.of(0, size, sort), hasNext);
+    }
+
+    //긴 목록은 임시 테이블에 쓰므로 쓰기 트랜잭션으로 연다 -> replica 라우팅이 켜져 있어도 primary 커넥션 하나로 끝난다
+    @Override
+    @Transactional
+    public List<Member> findByNames(List<String> names) {
+        //null은 in 절에서 어차피 맞지 않는다. 중복을 빼야 padding 구간도 작아진다
+        List<String> distinct = names.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (distinct.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (nameFilterTable.fitsInClause(distinct.size())) {
+            return em.createQuery("select m from Member m where m.userName in :names", Member.class)
+                    .setParameter("names", distinct)
+                    .getResultList();
+        }
+        return nameFilterTable.join(em, distinct, () -> em.createNativeQuery(
+                "select m.* from member m join member_name_filter f on m.user_name = f.name", Member.class)
+                .getResultList());
+    }
+
+    @Override
+    @Transactional
+    public int bulkAgePlus(int age) {
+        return auditedBulkUpdater.executeUpdate("update Member m set m.age = m.age+1 where m.age >= :age",
+                Collections.singletonMap("age", age));
+    }
+
+    @Override
+    @Transactional
+    public int bulkAgePlusInRange(int age, long fromId, long toId) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("age", age);
+        params.put("fromId", fromId);
+        params.put("toId", toId);
+        int updated = auditedBulkUpdater.executeUpdate(
+                "update Member m set m.age = m.age+1 where m.age >= :age and m.id between :fromId and :toId", params);
+        em.clear();
+        return updated;
+    }
+
+    private <R> TypedQuery<R> pagedQuery(String jpql, Class<R> type, Pageable pageable) {
+        TypedQuery<R> query = em.createQuery(QueryUtils.applySorting(jpql, pageable.getSort(), "m"), type);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize());
+        }
+        return query;
+    }
 }
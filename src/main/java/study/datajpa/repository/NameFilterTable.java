@@ -0,0 +1,120 @@
+package study.datajpa.repository;
+
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/*
+ * 이름 목록으로 거르는 조회의 전략을 고른다.
+ * - threshold 이하 : in (:names). hibernate.query.in_clause_parameter_padding 으로 바인드 개수가 2의 거듭제곱으로 맞춰져
+ *                    목록 크기마다 SQL/plan 이 새로 생기지 않는다
+ * - threshold 초과 : 임시 테이블(member_name_filter, V2 migration)에 batch insert 하고 join 한다.
+ *                    수천 개짜리 in 절은 파싱 비용이 크고 DB 파라미터 개수 제한에도 걸린다
+ * 임시 테이블에 쓰므로 replica 라우팅(datajpa.replica.enabled)이 켜져 있고 readOnly 트랜잭션에서 불리면
+ * primary 로 가는 별도 쓰기 트랜잭션에서 실행한다. 그 외에는 호출한 트랜잭션의 커넥션을 그대로 쓴다
+ * (같은 pool 에서 커넥션을 하나 더 잡으면 pool 크기만큼 동시에 불릴 때 서로 기다리다 막힌다)
+ * H2 1.4 + Hibernate 5.4 로는 배열 하나를 바인딩해서 join 하는 방법(= any(?), unnest)을 JPQL/엔티티 매핑으로 쓸 수 없어 임시 테이블을 쓴다
+ */
+@Component
+public class NameFilterTable {
+
+    private static final String INSERT_SQL = "insert into member_name_filter (name) values (?)";
+    private static final String CLEAR_SQL = "delete from member_name_filter";
+
+    private final int threshold;
+    private final int batchSize;
+    private final boolean replicaRouting;
+    private final TransactionTemplate writeTemplate;
+    private final LongAdder inClauseCount = new LongAdder();
+    private final LongAdder tempTableCount = new LongAdder();
+    private final LongAccumulator largestList = new LongAccumulator(Long::max, 0);
+
+    public NameFilterTable(@Value("${datajpa.in-list.temp-table-threshold:1000}") int threshold,
+                           @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize,
+                           @Value("${datajpa.replica.enabled:false}") boolean replicaRouting,
+                           PlatformTransactionManager transactionManager) {
+        this.threshold = threshold;
+        this.batchSize = batchSize;
+        this.replicaRouting = replicaRouting;
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    //in 절로 충분하면 true. 호출 횟수도 여기서 센다
+    public boolean fitsInClause(int size) {
+        largestList.accumulate(size);
+        if (size <= threshold) {
+            inClauseCount.increment();
+            return true;
+        }
+        tempTableCount.increment();
+        return false;
+    }
+
+    //같은 커넥션에서 이름을 채우고 query를 실행한 뒤 비운다. 트랜잭션 안에서 호출해야 한다
+    //replica 로 라우팅될 readOnly 트랜잭션이면 새 쓰기 트랜잭션(primary)에서 실행한다. 이때 반환된 엔티티는 준영속 상태다
+    public <R> R join(EntityManager em, Collection<String> names, Supplier<R> query) {
+        if (replicaRouting && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return writeTemplate.execute(status -> fillAndQuery(em, names, query));
+        }
+        return fillAndQuery(em, names, query);
+    }
+
+    private <R> R fillAndQuery(EntityManager em, Collection<String> names, Supplier<R> query) {
+        Session session = em.unwrap(Session.class);
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                int pending = 0;
+                for (String name : names) {
+                    statement.setString(1, name);
+                    statement.addBatch();
+                    if (++pending == batchSize) {
+                        statement.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    statement.executeBatch();
+                }
+            }
+        });
+        try {
+            return query.get();
+        } finally {
+            //on commit delete rows 이지만 같은 트랜잭션에서 다시 쓸 수 있으니 바로 지운다
+            session.doWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.executeUpdate(CLEAR_SQL);
+                }
+            });
+        }
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public long getInClauseCount() {
+        return inClauseCount.sum();
+    }
+
+    public long getTempTableCount() {
+        return tempTableCount.sum();
+    }
+
+    public long getLargestList() {
+        return largestList.get();
+    }
+}
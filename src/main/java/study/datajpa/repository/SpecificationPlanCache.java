@@ -0,0 +1,114 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import study.datajpa.Specification.KeyedSpecification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Parameter;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+//KeyedSpecification의 구조 키별로 Criteria -> JPQL 번역 결과를 캐시한다
+//같은 JPQL 문자열을 다시 쓰므로 Hibernate의 query plan cache(HQL -> SQL)도 그대로 hit 된다
+@Component
+public class SpecificationPlanCache {
+
+    private final int maxSize;
+    private final Map<List<Object>, String> plans = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    //literal 등 이름 없는 파라미터가 섞여서 캐시할 수 없었던 횟수
+    private final LongAdder uncacheable = new LongAdder();
+
+    public SpecificationPlanCache(@Value("${datajpa.spec-plan-cache.max-size:256}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public <T> TypedQuery<T> createQuery(EntityManager em, Class<T> domainClass, KeyedSpecification<T> spec) {
+        return createQuery(em, domainClass, domainClass, "entity", spec, (criteria, root, cb) -> criteria.select(root));
+    }
+
+    //shape : select 절, order by 등 where 외의 부분. shapeKey가 같으면 같은 모양이어야 한다
+    //where 절을 먼저 만들고 shape를 적용하므로 shape에서 Specification이 만든 join을 다시 쓸 수 있다
+    public <T, R> TypedQuery<R> createQuery(EntityManager em, Class<T> domainClass, Class<R> resultClass,
+                                            String shapeKey, KeyedSpecification<T> spec, QueryShape<T, R> shape) {
+        List<Object> key = Arrays.asList(domainClass, resultClass, shapeKey, spec.structureKey());
+        String jpql = plans.get(key);
+        if (jpql != null) {
+            hits.increment();
+            return bind(em.createQuery(jpql, resultClass), spec.parameters());
+        }
+        misses.increment();
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<R> criteria = cb.createQuery(resultClass);
+        Root<T> root = criteria.from(domainClass);
+        Predicate predicate = spec.toPredicate(root, criteria, cb, KeyedSpecification.ValueBinder.namedParameters(cb));
+        if (predicate != null) {
+            criteria.where(predicate);
+        }
+        shape.apply(criteria, root, cb);
+
+        TypedQuery<R> query = em.createQuery(criteria);
+        String rendered = query.unwrap(org.hibernate.query.Query.class).getQueryString();
+        //번역된 JPQL을 한 번 컴파일해 보고, 파라미터가 전부 이름으로 바인딩 가능한 경우에만 캐시한다
+        TypedQuery<R> planned = em.createQuery(rendered, resultClass);
+        if (isCacheable(planned, spec.parameters())) {
+            if (plans.size() < maxSize) {
+                plans.putIfAbsent(key, rendered);
+            }
+            return bind(planned, spec.parameters());
+        }
+        return bind(query, spec.parameters());
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getUncacheableCount() {
+        return uncacheable.sum();
+    }
+
+    public int size() {
+        return plans.size();
+    }
+
+    private boolean isCacheable(TypedQuery<?> query, Map<String, Object> parameters) {
+        for (Parameter<?> parameter : query.getParameters()) {
+            if (parameter.getName() == null || !parameters.containsKey(parameter.getName())) {
+                uncacheable.increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static <T> TypedQuery<T> bind(TypedQuery<T> query, Map<String, Object> parameters) {
+        for (Parameter<?> parameter : query.getParameters()) {
+            //criteria literal이 만든 이름 없는 파라미터는 Hibernate가 직접 바인딩한다
+            if (parameter.getName() != null && parameters.containsKey(parameter.getName())) {
+                query.setParameter(parameter.getName(), parameters.get(parameter.getName()));
+            }
+        }
+        return query;
+    }
+
+    @FunctionalInterface
+    public interface QueryShape<T, R> {
+        void apply(CriteriaQuery<R> criteria, Root<T> root, CriteriaBuilder cb);
+    }
+}
@@ -0,0 +1,140 @@
+package study.datajpa.repository.metadata;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.util.StringUtils;
+import study.datajpa.DataJpaApplication;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * ./gradlew generateRepositoryMetadata (check 에 포함된다. -PrepositoryMetadata 로 빌드하면 processResources 전에 실행해서 jar에 넣는다)
+ * 기동 시점에 Spring Data가 하던 일을 빌드 시점에 미리 한다.
+ * - 파생 쿼리 : 메소드 이름을 PartTree로 파싱하면서 property 경로를 검증
+ * - @Query (JPQL) / named query : 내장 H2 위의 EntityManager로 컴파일
+ * 하나라도 실패하면 빌드를 실패시키고, 성공하면 결과를 META-INF/datajpa/repository-metadata.json 으로 남긴다.
+ * bootstrap-mode=lazy 로 기동할 때 RepositoryMetadataVerifier가 이 파일로 검증 여부를 확인한다.
+ */
+public class RepositoryMetadataGenerator {
+
+    public static final String BASE_PACKAGE = "study.datajpa.repository";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("usage: RepositoryMetadataGenerator <output file>");
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--spring.datasource.url=jdbc:h2:mem:repository-metadata;DB_CLOSE_DELAY=-1",
+                        "--datajpa.repositories.bootstrap-mode=lazy",
+                        "--decorator.datasource.p6spy.enable-logging=false",
+                        "--logging.level.org.hibernate.SQL=warn");
+        try {
+            List<String> errors = new ArrayList<>();
+            Map<String, Object> metadata = generate(context.getBean(EntityManagerFactory.class), errors);
+            if (!errors.isEmpty()) {
+                errors.forEach(System.err::println);
+                throw new IllegalStateException(errors.size() + " invalid repository query method(s)");
+            }
+
+            File output = new File(args[0]);
+            output.getParentFile().mkdirs();
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, metadata);
+        } finally {
+            context.close();
+        }
+    }
+
+    public static Map<String, Object> generate(EntityManagerFactory emf, List<String> errors) {
+        List<Map<String, Object>> repositories = new ArrayList<>();
+        EntityManager em = emf.createEntityManager();
+        try {
+            for (Class<?> repositoryInterface : RepositoryQueryMethods.findRepositoryInterfaces(BASE_PACKAGE)) {
+                Class<?> domainType = RepositoryQueryMethods.domainType(repositoryInterface);
+                List<Map<String, Object>> methods = new ArrayList<>();
+                for (Method method : RepositoryQueryMethods.queryMethods(repositoryInterface)) {
+                    try {
+                        methods.add(describe(method, domainType, em));
+                    } catch (RuntimeException e) {
+                        errors.add(repositoryInterface.getSimpleName() + "." + RepositoryQueryMethods.signature(method)
+                                + " : " + e.getMessage());
+                    }
+                }
+
+                Map<String, Object> repository = new LinkedHashMap<>();
+                repository.put("interface", repositoryInterface.getName());
+                repository.put("domainType", domainType.getName());
+                repository.put("fingerprint", RepositoryQueryMethods.fingerprint(repositoryInterface));
+                repository.put("methods", methods);
+                repositories.add(repository);
+            }
+        } finally {
+            em.close();
+        }
+
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("repositories", repositories);
+        return metadata;
+    }
+
+    private static Map<String, Object> describe(Method method, Class<?> domainType, EntityManager em) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("signature", RepositoryQueryMethods.signature(method));
+
+        Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+        if (query != null && query.nativeQuery()) {
+            //native SQL은 DB에 보내기 전까지 검증할 수 없다
+            description.put("kind", "NATIVE");
+            description.put("query", query.value());
+            return description;
+        }
+        if (query != null && StringUtils.hasText(query.value())) {
+            em.createQuery(query.value());
+            if (StringUtils.hasText(query.countQuery())) {
+                em.createQuery(query.countQuery());
+            }
+            description.put("kind", "DECLARED");
+            description.put("query", query.value());
+            return description;
+        }
+
+        String namedQuery = query != null && StringUtils.hasText(query.name())
+                ? query.name()
+                : em.getMetamodel().entity(domainType).getName() + "." + method.getName();
+        if (hasNamedQuery(em, namedQuery)) {
+            description.put("kind", "NAMED");
+            description.put("query", namedQuery);
+            return description;
+        }
+
+        PartTree tree = new PartTree(method.getName(), domainType);
+        description.put("kind", "DERIVED");
+        description.put("query", tree.toString());
+        return description;
+    }
+
+    private static boolean hasNamedQuery(EntityManager em, String name) {
+        try {
+            em.createNamedQuery(name);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
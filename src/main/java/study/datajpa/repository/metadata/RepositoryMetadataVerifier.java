@@ -0,0 +1,77 @@
+package study.datajpa.repository.metadata;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//bootstrap-mode=lazy 이면 query 메소드가 처음 호출될 때에야 파싱/검증된다
+//기동할 때 빌드 시점에 검증한 metadata와 지금 repository 인터페이스 / 엔티티 매핑이 같은지만 비교한다 (파싱은 하지 않는다)
+//다르면 검증되지 않은 query 메소드가 있다는 뜻이므로 기동을 실패시킨다 (fail-on-mismatch=false 면 경고만)
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "datajpa.repositories", name = "bootstrap-mode", havingValue = "lazy")
+public class RepositoryMetadataVerifier {
+
+    public static final String LOCATION = "META-INF/datajpa/repository-metadata.json";
+
+    private final boolean failOnMismatch;
+
+    public RepositoryMetadataVerifier(@Value("${datajpa.repositories.metadata.fail-on-mismatch:true}") boolean failOnMismatch) {
+        this.failOnMismatch = failOnMismatch;
+    }
+
+    @PostConstruct
+    public void verify() {
+        Map<String, String> validated = readFingerprints();
+        if (validated == null) {
+            log.warn("{} not found - repository query methods are validated only on first use", LOCATION);
+            return;
+        }
+
+        List<String> stale = new ArrayList<>();
+        for (Class<?> repositoryInterface : RepositoryQueryMethods.findRepositoryInterfaces(RepositoryMetadataGenerator.BASE_PACKAGE)) {
+            String fingerprint = RepositoryQueryMethods.fingerprint(repositoryInterface);
+            if (!fingerprint.equals(validated.get(repositoryInterface.getName()))) {
+                stale.add(repositoryInterface.getSimpleName());
+            }
+        }
+        if (stale.isEmpty()) {
+            log.info("repository query methods match build-time metadata ({} repositories)", validated.size());
+            return;
+        }
+        if (failOnMismatch) {
+            throw new IllegalStateException("repository query methods changed since build-time validation : " + stale
+                    + " - rebuild with -PrepositoryMetadata");
+        }
+        log.warn("repository query methods changed since build-time validation : {}", stale);
+    }
+
+    private Map<String, String> readFingerprints() {
+        ClassPathResource resource = new ClassPathResource(LOCATION);
+        if (!resource.exists()) {
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            Map<String, String> fingerprints = new HashMap<>();
+            for (JsonNode repository : new ObjectMapper().readTree(in).path("repositories")) {
+                fingerprints.put(repository.path("interface").asText(), repository.path("fingerprint").asText());
+            }
+            return fingerprints;
+        } catch (IOException e) {
+            log.warn("cannot read {}", LOCATION, e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package study.datajpa.repository.metadata;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+
+import javax.persistence.Embeddable;
+import javax.persistence.Entity;
+import javax.persistence.NamedNativeQueries;
+import javax.persistence.NamedNativeQuery;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+//빌드 시점 생성기(RepositoryMetadataGenerator)와 기동 시점 확인(RepositoryMetadataVerifier)이 같은 기준으로
+//repository 인터페이스와 query 메소드를 고르도록 모아둔다
+public final class RepositoryQueryMethods {
+
+    private RepositoryQueryMethods() {
+    }
+
+    public static List<Class<?>> findRepositoryInterfaces(String basePackage) {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                return beanDefinition.getMetadata().isInterface();
+            }
+        };
+        scanner.addIncludeFilter(new AssignableTypeFilter(Repository.class));
+
+        List<Class<?>> interfaces = new ArrayList<>();
+        for (BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+            interfaces.add(ClassUtils.resolveClassName(candidate.getBeanClassName(), RepositoryQueryMethods.class.getClassLoader()));
+        }
+        interfaces.sort(Comparator.comparing(Class::getName));
+        return interfaces;
+    }
+
+    public static Class<?> domainType(Class<?> repositoryInterface) {
+        Class<?>[] arguments = GenericTypeResolver.resolveTypeArguments(repositoryInterface, Repository.class);
+        if (arguments == null || arguments[0] == null) {
+            throw new IllegalArgumentException("Cannot resolve domain type of " + repositoryInterface.getName());
+        }
+        return arguments[0];
+    }
+
+    //repository 인터페이스에 직접 선언된 query 메소드. Spring Data 기본 메소드를 재선언한 것(findAll + @EntityGraph 등)은 뺀다
+    public static List<Method> queryMethods(Class<?> repositoryInterface) {
+        return Arrays.stream(repositoryInterface.getDeclaredMethods())
+                .filter(method -> !method.isDefault() && !method.isSynthetic() && !method.isBridge()
+                        && !Modifier.isStatic(method.getModifiers()))
+                .filter(method -> !isBaseMethod(repositoryInterface, method))
+                .sorted(Comparator.comparing(RepositoryQueryMethods::signature))
+                .collect(Collectors.toList());
+    }
+
+    public static String signature(Method method) {
+        return method.getName() + Arrays.stream(method.getParameterTypes())
+                .map(Class::getSimpleName)
+                .collect(Collectors.joining(",", "(", ")"));
+    }
+
+    //메소드 시그니처, @Query 내용, domain type 의 property, named query 가 같으면 같은 값. 빌드 이후 바뀌었는지 확인하는 데 쓴다
+    //파생 쿼리와 named query 는 엔티티 property 에 따라 유효성이 바뀌므로 같이 넣는다
+    public static String fingerprint(Class<?> repositoryInterface) {
+        StringBuilder source = new StringBuilder(repositoryInterface.getName());
+        for (Method method : queryMethods(repositoryInterface)) {
+            source.append('\n').append(method.toGenericString());
+            Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+            if (query != null) {
+                source.append(" @Query(").append(query.value()).append('|').append(query.countQuery())
+                        .append('|').append(query.nativeQuery()).append(')');
+            }
+        }
+        appendMapping(domainType(repositoryInterface), source, new HashSet<>());
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //엔티티와 상위 클래스(@MappedSuperclass)의 필드, named query. 필드 타입이 엔티티/임베디드 타입이면 따라간다 (team.teamName 같은 경로)
+    private static void appendMapping(Class<?> type, StringBuilder source, Set<Class<?>> visited) {
+        if (!visited.add(type)) {
+            return;
+        }
+        Entity entity = type.getAnnotation(Entity.class);
+        source.append('\n').append(type.getName()).append(entity == null ? "" : " @Entity(" + entity.name() + ")");
+        for (NamedQuery namedQuery : AnnotatedElementUtils.findMergedRepeatableAnnotations(type, NamedQuery.class, NamedQueries.class)) {
+            source.append("\n@NamedQuery(").append(namedQuery.name()).append('|').append(namedQuery.query()).append(')');
+        }
+        for (NamedNativeQuery namedQuery : AnnotatedElementUtils.findMergedRepeatableAnnotations(type, NamedNativeQuery.class, NamedNativeQueries.class)) {
+            source.append("\n@NamedNativeQuery(").append(namedQuery.name()).append('|').append(namedQuery.query()).append(')');
+        }
+
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                    fields.add(field);
+                }
+            }
+        }
+        fields.sort(Comparator.comparing(field -> field.getDeclaringClass().getName() + "." + field.getName()));
+        for (Field field : fields) {
+            //annotation 의 toString 은 JDK 버전마다 달라서 넣지 않는다. JPQL 은 property 이름과 타입만 본다
+            source.append('\n').append(field.toGenericString());
+        }
+        for (Field field : fields) {
+            for (Class<?> related : relatedTypes(field)) {
+                if (related.isAnnotationPresent(Entity.class) || related.isAnnotationPresent(Embeddable.class)) {
+                    appendMapping(related, source, visited);
+                }
+            }
+        }
+    }
+
+    //List<Member> 같은 컬렉션은 원소 타입까지
+    private static List<Class<?>> relatedTypes(Field field) {
+        List<Class<?>> types = new ArrayList<>();
+        types.add(field.getType());
+        Type generic = field.getGenericType();
+        if (generic instanceof ParameterizedType) {
+            for (Type argument : ((ParameterizedType) generic).getActualTypeArguments()) {
+                if (argument instanceof Class) {
+                    types.add((Class<?>) argument);
+                }
+            }
+        }
+        return types;
+    }
+
+    private static boolean isBaseMethod(Class<?> repositoryInterface, Method method) {
+        for (Class<?> type : ClassUtils.getAllInterfacesForClassAsSet(repositoryInterface)) {
+            if (type.getName().startsWith("org.springframework.data.")
+                    && ClassUtils.hasMethod(type, method.getName(), method.getParameterTypes())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,346 @@
+package study.datajpa.repository.projection;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy;
+import net.bytebuddy.implementation.FieldAccessor;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.MethodCall;
+import net.bytebuddy.implementation.MethodDelegation;
+import net.bytebuddy.implementation.bind.annotation.RuntimeType;
+import net.bytebuddy.implementation.bind.annotation.This;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+import net.bytebuddy.matcher.ElementMatchers;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.HibernateProxyHelper;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.expression.MapAccessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.projection.ProjectionInformation;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ParseException;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.ast.CompoundExpression;
+import org.springframework.expression.spel.ast.Elvis;
+import org.springframework.expression.spel.ast.Literal;
+import org.springframework.expression.spel.ast.Operator;
+import org.springframework.expression.spel.ast.PropertyOrFieldReference;
+import org.springframework.expression.spel.ast.Ternary;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.util.ClassUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+//인터페이스 projection을 JDK proxy + SpEL 해석 대신, (인터페이스, source 타입)별로 한 번 생성한 클래스로 만든다
+//- closed property : source 엔티티의 getter를 직접 호출하는 코드 (tuple 조회 결과면 Map.get)
+//- open property(@Value) : target.* 만 참조하는 식이면 컴파일된 SpEL로 평가한다
+//- 반환 타입이 projection 인터페이스면 중첩 projection으로 감싼다
+//컬렉션 반환, 파라미터 있는 메서드, bean 참조 같은 복잡한 SpEL이 있으면 기존 proxy로 처리한다
+public class CompiledProjectionFactory extends SpelAwareProxyProjectionFactory {
+
+    private static final ConversionService CONVERSION_SERVICE = DefaultConversionService.getSharedInstance();
+    private static final String TARGET_FIELD = "target";
+
+    private final SpelExpressionParser parser =
+            new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.MIXED, getClass().getClassLoader()));
+    private final Map<List<Class<?>>, Optional<Constructor<?>>> compiled = new ConcurrentHashMap<>();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T createProjection(Class<T> type, Object source) {
+        if (source == null || !type.isInterface() || type.isInstance(source)) {
+            return super.createProjection(type, source);
+        }
+        Constructor<?> constructor = constructorFor(type, sourceType(source)).orElse(null);
+        if (constructor == null) {
+            return super.createProjection(type, source);
+        }
+        try {
+            return (T) constructor.newInstance(source, this);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot instantiate compiled projection for " + type.getName(), e);
+        }
+    }
+
+    //repository 생성 시점에 미리 클래스를 만들어 둔다. closed projection은 tuple(Map)로도 조회되므로 둘 다 만든다
+    public void warmUp(Class<?> type, Class<?> domainType) {
+        if (type.isInterface()) {
+            constructorFor(type, domainType);
+            constructorFor(type, Map.class);
+        }
+    }
+
+    //JpaRepositoryFactory의 기본 projection factory처럼 컬렉션 property는 tuple 조회 대상에서 뺀다
+    @Override
+    protected ProjectionInformation createProjectionInformation(Class<?> projectionType) {
+        return new SpelAwareProjectionInformation(projectionType) {
+            @Override
+            protected boolean isInputProperty(PropertyDescriptor property) {
+                if (!super.isInputProperty(property)) {
+                    return false;
+                }
+                Class<?> propertyType = property.getPropertyType();
+                return propertyType != null
+                        && !Collection.class.isAssignableFrom(propertyType)
+                        && !Map.class.isAssignableFrom(propertyType);
+            }
+        };
+    }
+
+    private Optional<Constructor<?>> constructorFor(Class<?> type, Class<?> sourceType) {
+        return compiled.computeIfAbsent(Arrays.asList(type, sourceType), key -> compile(type, sourceType));
+    }
+
+    //Hibernate 프록시는 초기화하지 않고 엔티티 클래스로 본다
+    private static Class<?> sourceType(Object source) {
+        if (source instanceof Map) {
+            return Map.class;
+        }
+        if (source instanceof HibernateProxy) {
+            return HibernateProxyHelper.getClassWithoutInitializingProxy(source);
+        }
+        return source.getClass();
+    }
+
+    private Optional<Constructor<?>> compile(Class<?> type, Class<?> sourceType) {
+        if (!Modifier.isPublic(type.getModifiers()) || !Modifier.isPublic(sourceType.getModifiers())
+                || !ClassUtils.isVisible(sourceType, type.getClassLoader())) {
+            return Optional.empty();
+        }
+        try {
+            //생성자 (S source, factory) : super(source, factory); this.target = source;
+            DynamicType.Builder<ProjectionBase> builder = new ByteBuddy()
+                    .subclass(ProjectionBase.class, ConstructorStrategy.Default.NO_CONSTRUCTORS)
+                    .implement(type)
+                    .name(type.getName() + "$Compiled$" + sourceType.getSimpleName())
+                    .defineField(TARGET_FIELD, sourceType, Visibility.PRIVATE)
+                    .defineConstructor(Visibility.PUBLIC)
+                    .withParameters(sourceType, CompiledProjectionFactory.class)
+                    .intercept(MethodCall.invoke(ProjectionBase.class.getDeclaredConstructor(Object.class, CompiledProjectionFactory.class))
+                            .withArgument(0, 1)
+                            .andThen(FieldAccessor.ofField(TARGET_FIELD).setsArgumentAt(0)));
+
+            for (Method method : type.getMethods()) {
+                if (method.isDefault() || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                Implementation implementation = implement(method, sourceType);
+                if (implementation == null) {
+                    return Optional.empty();
+                }
+                builder = builder.method(ElementMatchers.is(method)).intercept(implementation);
+            }
+
+            Class<?> generated = builder.make()
+                    .load(type.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+                    .getLoaded();
+            return Optional.of(generated.getConstructor(sourceType, CompiledProjectionFactory.class));
+        } catch (RuntimeException | NoSuchMethodException e) {
+            //생성에 실패하면 이 타입은 계속 proxy로 만든다
+            return Optional.empty();
+        }
+    }
+
+    private Implementation implement(Method method, Class<?> sourceType) throws NoSuchMethodException {
+        if (method.getParameterCount() > 0) {
+            return null;
+        }
+        PropertyDescriptor descriptor = BeanUtils.findPropertyForMethod(method);
+        if (descriptor == null) {
+            return null;
+        }
+
+        Class<?> returnType = method.getReturnType();
+        if (Collection.class.isAssignableFrom(returnType) || Map.class.isAssignableFrom(returnType)
+                || Iterator.class.isAssignableFrom(returnType) || Optional.class.isAssignableFrom(returnType)
+                || Stream.class.isAssignableFrom(returnType) || returnType.isArray()) {
+            return null;
+        }
+        boolean nestedProjection = returnType.isInterface() && !isJdkOrSpringType(returnType);
+
+        Value value = AnnotatedElementUtils.findMergedAnnotation(method, Value.class);
+        if (value != null) {
+            Expression expression = parseTargetExpression(value.value());
+            if (expression == null) {
+                return null;
+            }
+            return MethodDelegation.withDefaultConfiguration()
+                    .filter(ElementMatchers.named("read"))
+                    .to(new ExpressionReader(expression, returnType));
+        }
+
+        String property = descriptor.getName();
+        MethodCall read;
+        if (Map.class.equals(sourceType)) {
+            //closed projection의 tuple 조회 결과
+            read = MethodCall.invoke(Map.class.getMethod("get", Object.class)).onField(TARGET_FIELD).with(property);
+        } else {
+            PropertyDescriptor sourceProperty = BeanUtils.getPropertyDescriptor(sourceType, property);
+            Method getter = sourceProperty == null ? null : sourceProperty.getReadMethod();
+            if (getter == null || !Modifier.isPublic(getter.getDeclaringClass().getModifiers())) {
+                return null;
+            }
+            read = MethodCall.invoke(getter).onField(TARGET_FIELD);
+            if (!nestedProjection && ClassUtils.isAssignable(returnType, getter.getReturnType())) {
+                //target.getXxx() 를 그대로 반환한다
+                return read.withAssigner(Assigner.DEFAULT, Assigner.Typing.DYNAMIC);
+            }
+        }
+        //값을 꺼낸 뒤 변환 / 중첩 projection이 필요하면 adapt(value, returnType)
+        return MethodCall.invoke(ProjectionBase.class.getDeclaredMethod("adapt", Object.class, Class.class))
+                .withMethodCall(read)
+                .with(ClassUtils.resolvePrimitiveIfNecessary(returnType))
+                .withAssigner(Assigner.DEFAULT, Assigner.Typing.DYNAMIC);
+    }
+
+    //#{target.userName + ' ' + target.age} 처럼 target 아래 property, literal, 연산자만 쓰는 식이면 파싱해 둔다
+    //변수(#x), bean(@x), 메서드 호출, target 외의 root property 를 쓰면 null (기존 proxy로 평가)
+    Expression parseTargetExpression(String template) {
+        String trimmed = template.trim();
+        if (!trimmed.startsWith("#{") || !trimmed.endsWith("}")) {
+            return null;
+        }
+        try {
+            SpelExpression expression = parser.parseRaw(trimmed.substring(2, trimmed.length() - 1));
+            return isTargetOnly(expression.getAST()) ? expression : null;
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    //root 에서 평가되는 노드를 본다
+    private static boolean isTargetOnly(SpelNode node) {
+        if (node instanceof PropertyOrFieldReference) {
+            return TARGET_FIELD.equals(((PropertyOrFieldReference) node).getName());
+        }
+        if (node instanceof CompoundExpression) {
+            //target.a.b : 첫 노드만 root 기준이고 나머지는 property 참조여야 한다
+            if (!isTargetOnly(node.getChild(0))) {
+                return false;
+            }
+            for (int i = 1; i < node.getChildCount(); i++) {
+                if (!(node.getChild(i) instanceof PropertyOrFieldReference)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (node instanceof Literal) {
+            return true;
+        }
+        if (node instanceof Operator || node instanceof Ternary || node instanceof Elvis) {
+            for (int i = 0; i < node.getChildCount(); i++) {
+                if (!isTargetOnly(node.getChild(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isJdkOrSpringType(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("org.springframework.");
+    }
+
+    //생성되는 projection 클래스의 부모. getter 이름이 아니어야 json 직렬화에 source가 섞이지 않는다
+    public abstract static class ProjectionBase {
+
+        private final Object source;
+        private final CompiledProjectionFactory factory;
+
+        protected ProjectionBase(Object source, CompiledProjectionFactory factory) {
+            this.source = source;
+            this.factory = factory;
+        }
+
+        public Object source() {
+            return source;
+        }
+
+        public CompiledProjectionFactory factory() {
+            return factory;
+        }
+
+        //반환 타입이 다르면 중첩 projection 으로 감싸거나 변환한다
+        protected final Object adapt(Object value, Class<?> returnType) {
+            if (value == null || returnType.isInstance(value)) {
+                return value;
+            }
+            if (returnType.isInterface() && !isJdkOrSpringType(returnType)) {
+                return factory.createProjection(returnType, value);
+            }
+            return CONVERSION_SERVICE.convert(value, returnType);
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "(" + source + ")";
+        }
+    }
+
+    //SpEL 이 root 의 target 으로 source 를 찾는다 (proxy projection 의 TargetWrapper 와 같은 모양)
+    public static final class TargetRoot {
+
+        private final Object target;
+
+        TargetRoot(Object target) {
+            this.target = target;
+        }
+
+        public Object getTarget() {
+            return target;
+        }
+    }
+
+    //open projection(@Value) getter 하나에 대응한다. 생성된 클래스의 메서드가 read를 바로 호출한다
+    public static final class ExpressionReader {
+
+        private static final EvaluationContext MAP_CONTEXT = mapContext();
+
+        private final Expression expression;
+        private final Class<?> returnType;
+
+        ExpressionReader(Expression expression, Class<?> returnType) {
+            this.expression = expression;
+            this.returnType = ClassUtils.resolvePrimitiveIfNecessary(returnType);
+        }
+
+        @RuntimeType
+        public Object read(@This ProjectionBase self) {
+            Object source = self.source();
+            TargetRoot root = new TargetRoot(source);
+            Object value = source instanceof Map ? expression.getValue(MAP_CONTEXT, root) : expression.getValue(root);
+            return self.adapt(value, returnType);
+        }
+
+        private static EvaluationContext mapContext() {
+            StandardEvaluationContext context = new StandardEvaluationContext();
+            context.addPropertyAccessor(new MapAccessor());
+            return context;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package study.datajpa.repository.projection;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.data.jpa.repository.query.JpaQueryMethodFactory;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.querydsl.EntityPathResolver;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+import org.springframework.lang.Nullable;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.Method;
+
+//JpaRepositoryFactory가 CompiledProjectionFactory를 쓰도록 바꾼다
+//projection factory를 바꿀 수 있는 곳은 getProjectionFactory 오버라이드뿐이라 JpaRepositoryFactory 하위 클래스를 만든다
+//부모가 factory에 넘기는 설정값(entityPathResolver, escapeCharacter, queryMethodFactory)은 private 이라 setter에서 같이 받아 두고
+//factory의 public setter로 똑같이 넘긴다
+public class CompiledProjectionJpaRepositoryFactoryBean<T extends Repository<S, ID>, S, ID>
+        extends JpaRepositoryFactoryBean<T, S, ID> {
+
+    private EntityPathResolver entityPathResolver = SimpleEntityPathResolver.INSTANCE;
+    private EscapeCharacter escapeCharacter = EscapeCharacter.DEFAULT;
+    private JpaQueryMethodFactory queryMethodFactory;
+    private CompiledProjectionFactory projectionFactory;
+
+    public CompiledProjectionJpaRepositoryFactoryBean(Class<? extends T> repositoryInterface) {
+        super(repositoryInterface);
+    }
+
+    @Autowired
+    public void setProjectionFactory(CompiledProjectionFactory projectionFactory) {
+        this.projectionFactory = projectionFactory;
+    }
+
+    //오버라이드한 메서드에는 @Autowired를 다시 붙여야 주입된다
+    @Override
+    @Autowired
+    public void setEntityPathResolver(ObjectProvider<EntityPathResolver> resolver) {
+        super.setEntityPathResolver(resolver);
+        this.entityPathResolver = resolver.getIfAvailable(() -> SimpleEntityPathResolver.INSTANCE);
+    }
+
+    @Override
+    public void setEscapeCharacter(char escapeCharacter) {
+        super.setEscapeCharacter(escapeCharacter);
+        this.escapeCharacter = EscapeCharacter.of(escapeCharacter);
+    }
+
+    @Override
+    @Autowired
+    public void setQueryMethodFactory(@Nullable JpaQueryMethodFactory factory) {
+        super.setQueryMethodFactory(factory);
+        if (factory != null) {
+            this.queryMethodFactory = factory;
+        }
+    }
+
+    @Override
+    protected RepositoryFactorySupport createRepositoryFactory(EntityManager entityManager) {
+        JpaRepositoryFactory factory = new CompiledProjectionJpaRepositoryFactory(entityManager, projectionFactory);
+        factory.setEntityPathResolver(entityPathResolver);
+        factory.setEscapeCharacter(escapeCharacter);
+        if (queryMethodFactory != null) {
+            factory.setQueryMethodFactory(queryMethodFactory);
+        }
+        return factory;
+    }
+
+    //query 메서드가 반환하는 projection 인터페이스는 기동 시점에 클래스를 만들어 둔다
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        RepositoryInformation information = getRepositoryInformation();
+        for (Method method : information.getQueryMethods()) {
+            Class<?> returned = information.getReturnedDomainClass(method);
+            if (returned.isInterface() && !returned.isAssignableFrom(information.getDomainType())) {
+                projectionFactory.warmUp(returned, information.getDomainType());
+            }
+        }
+    }
+
+    private static class CompiledProjectionJpaRepositoryFactory extends JpaRepositoryFactory {
+
+        private final CompiledProjectionFactory projectionFactory;
+
+        CompiledProjectionJpaRepositoryFactory(EntityManager entityManager, CompiledProjectionFactory projectionFactory) {
+            super(entityManager);
+            this.projectionFactory = projectionFactory;
+        }
+
+        @Override
+        protected ProjectionFactory getProjectionFactory(ClassLoader classLoader, BeanFactory beanFactory) {
+            return projectionFactory;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package study.datajpa.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//bulkAgePlus를 id 구간(chunk)으로 나눠 chunk마다 커밋한다. 한번에 넓은 범위를 잠그지 않는다
+//chunk 계획과 완료 여부는 member_bulk_job_chunk 에 남는다. 중간에 실패하면 같은 jobId로 다시 실행해서 남은 chunk만 처리한다
+//모든 chunk가 끝나면 job의 row를 지운다. 끝난 jobId로 다시 실행하면 새 job으로 계획한다
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemberBulkUpdateService {
+
+    private final MemberRepository memberRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager em;
+
+    public interface ProgressListener {
+        void onChunk(long fromId, long toId, int updated, int completedChunks, int totalChunks);
+    }
+
+    public int bulkAgePlus(int age, int chunkSize, int workers) {
+        return bulkAgePlus(UUID.randomUUID().toString(), age, chunkSize, workers);
+    }
+
+    public int bulkAgePlus(String jobId, int age, int chunkSize, int workers) {
+        return bulkAgePlus(jobId, age, chunkSize, workers, (fromId, toId, updated, completed, total) ->
+                log.info("bulkAgePlus {} chunk [{} ~ {}] updated {} ({}/{})", jobId, fromId, toId, updated, completed, total));
+    }
+
+    public int bulkAgePlus(int age, int chunkSize, int workers, ProgressListener listener) {
+        return bulkAgePlus(UUID.randomUUID().toString(), age, chunkSize, workers, listener);
+    }
+
+    //트랜잭션 밖에서 호출해야 한다. 호출한 쪽 트랜잭션이 잡고 있는 row는 chunk 트랜잭션에서 기다리게 되고,
+    //그 영속성 컨텍스트의 Member는 chunk 커밋 후에도 이전 age를 갖게 된다
+    //jobId : 처음 실행하면 chunk를 계획해서 저장하고, 이미 있으면 저장된 계획 중 끝나지 않은 chunk만 실행한다
+    public int bulkAgePlus(String jobId, int age, int chunkSize, int workers, ProgressListener listener) {
+        if (chunkSize < 1 || workers < 1) {
+            throw new IllegalArgumentException("chunkSize and workers must be positive");
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("bulkAgePlus must be called outside a transaction");
+        }
+
+        TransactionTemplate planTemplate = new TransactionTemplate(transactionManager);
+        List<long[]> chunks = planTemplate.execute(status -> pendingChunks(jobId, age, chunkSize));
+        if (chunks.isEmpty()) {
+            //마지막 chunk 커밋 후 지우기 전에 멈춘 job
+            deleteJob(planTemplate, jobId);
+            return 0;
+        }
+
+        TransactionTemplate chunkTemplate = new TransactionTemplate(transactionManager);
+        chunkTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicInteger updatedTotal = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+
+        List<Runnable> tasks = new ArrayList<>();
+        for (long[] chunk : chunks) {
+            tasks.add(() -> {
+                //update와 완료 표시를 같이 커밋한다. 둘 다 되거나 둘 다 안 된다
+                Integer updated = chunkTemplate.execute(status -> {
+                    int count = memberRepository.bulkAgePlusInRange(age, chunk[0], chunk[1]);
+                    jobUpdate("update member_bulk_job_chunk set done = true where job_id = ?1 and from_id = ?2", jobId, chunk[0]);
+                    return count;
+                });
+                int count = updated == null ? 0 : updated;
+                updatedTotal.addAndGet(count);
+                listener.onChunk(chunk[0], chunk[1], count, completed.incrementAndGet(), chunks.size());
+            });
+        }
+        run(tasks, workers);
+        deleteJob(planTemplate, jobId);
+        return updatedTotal.get();
+    }
+
+    private void deleteJob(TransactionTemplate template, String jobId) {
+        template.executeWithoutResult(status -> jobUpdate("delete from member_bulk_job_chunk where job_id = ?1", jobId));
+    }
+
+    private List<long[]> pendingChunks(String jobId, int age, int chunkSize) {
+        List<?> ages = em.createNativeQuery("select distinct age from member_bulk_job_chunk where job_id = ?1")
+                .setParameter(1, jobId)
+                .getResultList();
+        if (ages.isEmpty()) {
+            List<long[]> chunks = planChunks(age, chunkSize);
+            for (long[] chunk : chunks) {
+                jobUpdate("insert into member_bulk_job_chunk (job_id, from_id, to_id, age) values (?1, ?2, ?3, ?4)",
+                        jobId, chunk[0], chunk[1], age);
+            }
+            return chunks;
+        }
+        if (ages.size() != 1 || ((Number) ages.get(0)).intValue() != age) {
+            throw new IllegalArgumentException("job " + jobId + " was started with age " + ages + ", not " + age);
+        }
+
+        List<?> rows = em.createNativeQuery(
+                "select from_id, to_id from member_bulk_job_chunk where job_id = ?1 and done = false order by from_id")
+                .setParameter(1, jobId)
+                .getResultList();
+        List<long[]> chunks = new ArrayList<>();
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            chunks.add(new long[]{((Number) columns[0]).longValue(), ((Number) columns[1]).longValue()});
+        }
+        return chunks;
+    }
+
+    //member_bulk_job_chunk 만 바꾼다고 알려서 native update가 2차 캐시 전체를 비우지 않게 한다
+    private void jobUpdate(String sql, Object... params) {
+        NativeQuery<?> query = em.createNativeQuery(sql).unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("member_bulk_job_chunk");
+        for (int i = 0; i < params.length; i++) {
+            query.setParameter(i + 1, params[i]);
+        }
+        query.executeUpdate();
+    }
+
+    //대상 id를 keyset으로 chunkSize 개씩 읽어 [첫 id, 마지막 id] 구간을 만든다
+    //id는 노드별 블록(BlockSequenceIdGenerator)으로 나눠져 듬성듬성하므로 min ~ max 를 산술로 나누면 빈 구간이 많다
+    private List<long[]> planChunks(int age, int chunkSize) {
+        List<long[]> chunks = new ArrayList<>();
+        long lastId = Long.MIN_VALUE;
+        while (true) {
+            List<Long> ids = em.createQuery(
+                    "select m.id from Member m where m.age >= :age and m.id > :lastId order by m.id asc", Long.class)
+                    .setParameter("age", age)
+                    .setParameter("lastId", lastId)
+                    .setMaxResults(chunkSize)
+                    .getResultList();
+            if (ids.isEmpty()) {
+                return chunks;
+            }
+            lastId = ids.get(ids.size() - 1);
+            chunks.add(new long[]{ids.get(0), lastId});
+        }
+    }
+
+    private void run(List<Runnable> tasks, int workers) {
+        if (workers == 1) {
+            tasks.forEach(Runnable::run);
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(workers, tasks.size()));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("bulk update interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("bulk update chunk failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
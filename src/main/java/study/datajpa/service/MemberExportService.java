@@ -0,0 +1,78 @@
+package study.datajpa.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+
+    //이 건수마다 영속성 컨텍스트를 비우고 writer를 flush 한다
+    static final int CLEAR_INTERVAL = 1000;
+
+    private final MemberRepository memberRepository;
+    private final EntityManager em;
+    private final ObjectMapper objectMapper;
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum Format {
+        CSV("text/csv"),
+        NDJSON("application/x-ndjson");
+
+        private final String contentType;
+    }
+
+    @Transactional(readOnly = true)
+    public long export(Format format, Writer writer) throws IOException {
+        if (format == Format.CSV) {
+            writer.write("id,userName,teamName\n");
+        }
+
+        long count = 0;
+        try (Stream<Member> members = memberRepository.streamAllBy()) {
+            Iterator<Member> iterator = members.iterator();
+            while (iterator.hasNext()) {
+                Member member = iterator.next();
+                MemberDto dto = new MemberDto(member.getId(), member.getUserName(),
+                        member.getTeam() == null ? null : member.getTeam().getTeamName());
+                if (format == Format.CSV) {
+                    writer.write(dto.getId() + "," + csv(dto.getUserName()) + "," + csv(dto.getTeamName()) + "\n");
+                } else {
+                    writer.write(objectMapper.writeValueAsString(dto));
+                    writer.write('\n');
+                }
+
+                //읽은 row를 영속성 컨텍스트에 쌓아두지 않는다
+                if (++count % CLEAR_INTERVAL == 0) {
+                    em.clear();
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
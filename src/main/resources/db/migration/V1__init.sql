@@ -0,0 +1,46 @@
+-- Member, Team, Item 초기 스키마 (Hibernate H2Dialect 가 만들던 DDL과 같은 타입/이름)
+-- 이후 변경은 V2__*.sql 처럼 새 파일로 추가한다. 이미 적용된 파일은 고치지 않는다 (checksum 검증)
+
+-- BlockSequenceIdGenerator : increment 는 @GenericGenerator 의 increment_size 와 같아야 한다 (validate 가 비교한다)
+create sequence member_seq start with 1 increment by 1000;
+create sequence team_seq start with 1 increment by 1000;
+
+create table team (
+    team_id bigint not null,
+    created_date timestamp,
+    last_modified_date timestamp,
+    created_by varchar(255),
+    last_modified_by varchar(255),
+    team_name varchar(255),
+    version bigint,
+    primary key (team_id)
+);
+
+create table member (
+    member_id bigint not null,
+    created_date timestamp,
+    last_modified_date timestamp,
+    created_by varchar(255),
+    last_modified_by varchar(255),
+    age integer not null,
+    user_name varchar(255),
+    version bigint,
+    team_id bigint,
+    primary key (member_id),
+    constraint fk_member_team foreign key (team_id) references team (team_id)
+);
+
+create table item (
+    item_id bigint not null,
+    created_date timestamp,
+    last_modified_date timestamp,
+    created_by varchar(255),
+    last_modified_by varchar(255),
+    item_name varchar(255),
+    primary key (item_id)
+);
+
+-- Member @Table(indexes) 와 같은 이름
+create index idx_member_user_name_id on member (user_name, member_id);
+create index idx_member_age on member (age);
+create index idx_member_team_id on member (team_id);
@@ -0,0 +1,5 @@
+-- MemberRepository.findByNames 가 긴 이름 목록을 in 절 대신 join 으로 거를 때 쓰는 임시 테이블
+-- 내용은 세션(커넥션)마다 따로 보이고, 쓰고 나면 NameFilterTable 이 지운다
+create global temporary table member_name_filter (
+    name varchar(255) not null primary key
+) on commit delete rows;
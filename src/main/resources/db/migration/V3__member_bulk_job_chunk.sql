@@ -0,0 +1,10 @@
+-- MemberBulkUpdateService 의 chunk 계획과 완료 표시. 같은 job_id 로 다시 실행하면 done 이 아닌 chunk만 실행한다
+-- chunk의 update 와 done 표시는 같은 트랜잭션에서 커밋된다
+create table member_bulk_job_chunk (
+    job_id varchar(100) not null,
+    from_id bigint not null,
+    to_id bigint not null,
+    age integer not null,
+    done boolean default false not null,
+    primary key (job_id, from_id)
+);
@@ -0,0 +1,9 @@
+-- @Version 컬럼이 null 이면 bulk update 의 version = version + 1 도 null 로 남아 낙관적 락이 동작하지 않는다
+-- SQL로 직접 넣은 row 도 0 부터 시작하도록 기본값을 주고 null 을 막는다
+update team set version = 0 where version is null;
+alter table team alter column version set default 0;
+alter table team alter column version set not null;
+
+update member set version = 0 where version is null;
+alter table member alter column version set default 0;
+alter table member alter column version set not null;
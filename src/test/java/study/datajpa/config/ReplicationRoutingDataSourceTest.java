@@ -0,0 +1,29 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicationRoutingDataSourceTest {
+
+    ReplicationRoutingDataSource routingDataSource = new ReplicationRoutingDataSource();
+
+    @Test
+    @DisplayName("readOnly 트랜잭션은 replica 로 간다")
+    void readOnlyGoesToReplica() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(ReplicationRoutingDataSource.REPLICA);
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+
+    @Test
+    @DisplayName("그 외에는 primary 로 간다")
+    void writeGoesToPrimary() {
+        assertThat(routingDataSource.determineCurrentLookupKey()).isEqualTo(ReplicationRoutingDataSource.PRIMARY);
+    }
+}
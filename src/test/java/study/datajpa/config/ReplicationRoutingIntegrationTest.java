@@ -0,0 +1,122 @@
+package study.datajpa.config;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//primary / replica 를 서로 다른 H2 DB로 띄운다. 같은 이름의 member를 각 DB에 다른 나이로 넣어두고 어느 DB에서 읽었는지 구분한다
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "datajpa.replica.datasource.jdbc-url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "datajpa.in-list.temp-table-threshold=2"
+})
+@ActiveProfiles("replica")
+class ReplicationRoutingIntegrationTest {
+
+    private static final int PRIMARY_AGE = 10;
+    private static final int REPLICA_AGE = 20;
+    private static final long MANUAL_ID = 1_000_000_000L;
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired @Qualifier("primaryDataSource") DataSource primaryDataSource;
+    @Autowired @Qualifier("replicaDataSource") DataSource replicaDataSource;
+
+    JdbcTemplate primary;
+    JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        //Flyway는 primary에만 돈다. 복제 대신 replica 스키마를 같은 migration으로 만든다
+        Flyway.configure().dataSource(replicaDataSource).load().migrate();
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        //sequence가 1부터 주는 id와 겹치지 않게 큰 id를 쓴다
+        insertMember(primary, MANUAL_ID, "RoutingMember", PRIMARY_AGE);
+        insertMember(replica, MANUAL_ID, "RoutingMember", REPLICA_AGE);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        primary.update("delete from member");
+        replica.update("delete from member");
+    }
+
+    @Test
+    @DisplayName("readOnly repository 조회는 replica에서 읽는다")
+    void readOnlyQueryGoesToReplica() {
+        //when
+        List<Member> members = memberRepository.findMemberListByUserName("RoutingMember");
+
+        //then
+        assertThat(members).extracting("age").containsExactly(REPLICA_AGE);
+    }
+
+    @Test
+    @DisplayName("save는 primary에 쓴다")
+    void saveGoesToPrimary() {
+        //when
+        memberRepository.save(new Member("RoutingWriter", 30));
+
+        //then
+        assertThat(primary.queryForObject("select count(*) from member where user_name = 'RoutingWriter'", Long.class)).isEqualTo(1);
+        assertThat(replica.queryForObject("select count(*) from member where user_name = 'RoutingWriter'", Long.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("claimNext(select for update)는 쓰기 트랜잭션이므로 primary에서 잠근다")
+    void claimNextGoesToPrimary() {
+        //when
+        List<Member> claimed = memberRepository.claimNext(PageRequest.of(0, 10));
+
+        //then
+        assertThat(claimed).extracting("age").containsExactly(PRIMARY_AGE);
+    }
+
+    @Test
+    @DisplayName("이름이 threshold보다 많은 findByNames는 임시 테이블에 쓰므로 primary에서 실행된다")
+    void findByNamesTempTableGoesToPrimary() {
+        //when
+        List<Member> members = memberRepository.findByNames(Arrays.asList("RoutingMember", "Other1", "Other2"));
+
+        //then
+        assertThat(members).extracting("age").containsExactly(PRIMARY_AGE);
+    }
+
+    @Test
+    @DisplayName("readOnly 트랜잭션 안에서 부른 findByNames도 임시 테이블 조회는 primary에서 실행된다")
+    void findByNamesInReadOnlyTransactionGoesToPrimary() {
+        //given
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        //when
+        List<Member> members = readOnly.execute(status ->
+                memberRepository.findByNames(Arrays.asList("RoutingMember", "Other1", "Other2")));
+
+        //then
+        assertThat(members).extracting("age").containsExactly(PRIMARY_AGE);
+    }
+
+    private void insertMember(JdbcTemplate jdbcTemplate, long id, String userName, int age) {
+        jdbcTemplate.update("insert into member (member_id, user_name, age, version) values (?, ?, ?, 0)", id, userName, age);
+    }
+}
@@ -0,0 +1,82 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RepositoryExecutorTest {
+
+    @Test
+    @DisplayName("platform 모드는 pool 크기를 따라 스레드 수가 바뀐다")
+    void resizePlatform() {
+        RepositoryExecutor repositoryExecutor = new RepositoryExecutor(4, "platform", 10);
+        try {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) repositoryExecutor.getExecutor();
+
+            repositoryExecutor.resize(8);
+            assertThat(pool.getCorePoolSize()).isEqualTo(8);
+            assertThat(pool.getMaximumPoolSize()).isEqualTo(8);
+
+            repositoryExecutor.resize(2);
+            assertThat(pool.getCorePoolSize()).isEqualTo(2);
+            assertThat(pool.getMaximumPoolSize()).isEqualTo(2);
+        } finally {
+            repositoryExecutor.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("permit 한도를 줄이면 실행 중인 작업이 끝날 때까지 새 작업이 한도를 넘지 않는다")
+    void resizePermits() throws InterruptedException {
+        //given : 한도 3에서 작업 3개가 실행 중
+        RepositoryExecutor.PermitBoundedExecutor executor =
+                new RepositoryExecutor.PermitBoundedExecutor(Executors.newCachedThreadPool(), 3);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(3);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(6);
+        Runnable blocking = () -> {
+            running.incrementAndGet();
+            started.countDown();
+            await(release);
+            running.decrementAndGet();
+            done.countDown();
+        };
+        for (int i = 0; i < 3; i++) {
+            executor.execute(blocking);
+        }
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        //when : 한도를 1로 줄이고 작업 3개를 더 넣는다
+        executor.resize(1);
+        for (int i = 0; i < 3; i++) {
+            executor.execute(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+        release.countDown();
+
+        //then
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(peak.get()).isEqualTo(1);
+        executor.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
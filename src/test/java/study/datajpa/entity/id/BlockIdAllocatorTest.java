@@ -0,0 +1,65 @@
+package study.datajpa.entity.id;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BlockIdAllocatorTest {
+
+    @Test
+    @DisplayName("블록 안에서는 sequence 호출 없이 연속된 id를 준다")
+    void nextInBlock() {
+        AtomicLong sequence = new AtomicLong(1);
+        BlockIdAllocator allocator = new BlockIdAllocator(10);
+
+        for (long expected = 1; expected <= 25; expected++) {
+            assertThat(allocator.next(() -> sequence.getAndAdd(10))).isEqualTo(expected);
+        }
+        assertThat(sequence.get()).isEqualTo(31);//3 블록 예약
+    }
+
+    @Test
+    @DisplayName("여러 스레드가 동시에 받아도 id가 겹치지 않고 버려지는 블록이 없다")
+    void concurrentNextIsUnique() throws Exception {
+        int threads = 8;
+        int perThread = 10_000;
+        AtomicLong sequence = new AtomicLong(1);
+        BlockIdAllocator allocator = new BlockIdAllocator(100);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < perThread; j++) {
+                    ids.add(allocator.next(() -> sequence.getAndAdd(100)));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertThat(ids).hasSize(threads * perThread);
+        //블록 경계에서 sequence는 한 번만 불린다 -> 필요한 블록 수만큼만 예약
+        assertThat(sequence.get()).isEqualTo(1 + (long) threads * perThread);
+    }
+}
@@ -0,0 +1,41 @@
+package study.datajpa.monitor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("백분위는 2배 오차 안의 bucket 상한으로 근사한다")
+    void percentileTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(1_000);//1us
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(1_000_000);//1ms
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount()).isEqualTo(100);
+        assertThat(snapshot.percentileNanos(0.50)).isBetween(1_000L, 2_000L);
+        assertThat(snapshot.percentileNanos(0.95)).isBetween(1_000_000L, 2_000_000L);
+    }
+
+    @Test
+    @DisplayName("이전 snapshot을 빼면 그 사이 구간의 분포만 남는다")
+    void windowTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_000);
+        LatencyHistogram.Snapshot before = histogram.snapshot();
+
+        histogram.record(1_000);
+        histogram.record(1_000);
+        LatencyHistogram.Snapshot window = histogram.snapshot().minus(before);
+
+        assertThat(window.getCount()).isEqualTo(2);
+        assertThat(window.percentileNanos(0.99)).isBetween(1_000L, 2_000L);
+    }
+}
@@ -0,0 +1,30 @@
+package study.datajpa.monitor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.repository.MemberRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PoolMetricsTest {
+
+    @Autowired PoolMetrics poolMetrics;
+    @Autowired MemberRepository memberRepository;
+
+    @Test
+    @DisplayName("Hikari pool에 metrics tracker가 붙고 repository 메소드별 커넥션 점유 시간이 쌓인다")
+    void poolMetricsTest() {
+        //when
+        memberRepository.findUserNameList();
+
+        //then
+        assertThat(poolMetrics.getDataSources()).isNotEmpty();
+        assertThat(poolMetrics.getPools()).isNotEmpty();
+        assertThat(poolMetrics.getPools().values())
+                .anyMatch(pool -> pool.getAcquire().snapshot().getCount() > 0);
+        assertThat(poolMetrics.getHoldByMethod()).containsKey("MemberRepository.findUserNameList");
+    }
+}
@@ -0,0 +1,71 @@
+package study.datajpa.monitor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class QueryCountTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired QueryBudgetProperties queryBudgetProperties;
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    @DisplayName("같은 select 가 id만 바꿔서 반복되면 N+1 로 잡는다")
+    void findRepeatedSelectsTest() {
+        //given
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(new Member("QueryCountMember" + i, 10));
+        }
+        em.flush();
+        em.clear();
+
+        //when
+        QueryCountHolder.start();
+        QueryCount count;
+        try {
+            for (int i = 0; i < 5; i++) {
+                memberRepository.findUser("QueryCountMember" + i, 10);
+            }
+        } finally {
+            count = QueryCountHolder.stop();
+        }
+
+        //then
+        assertThat(count.getTotal()).isEqualTo(5);
+        assertThat(count.getCountByMethod()).containsEntry("MemberRepository.findUser", 5);
+        assertThat(count.findRepeatedSelects(5)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("failOnExceed 면 예산을 넘는 repository 호출에서 예외가 난다")
+    void failOnExceedTest() {
+        int perRequest = queryBudgetProperties.getPerRequest();
+        queryBudgetProperties.setPerRequest(1);
+        queryBudgetProperties.setFailOnExceed(true);
+
+        QueryCountHolder.start();
+        try {
+            memberRepository.findUserNameList();
+            assertThatThrownBy(() -> memberRepository.findUserNameList())
+                    .isInstanceOf(QueryBudgetExceededException.class);
+        } finally {
+            QueryCountHolder.stop();
+            queryBudgetProperties.setPerRequest(perRequest);
+            queryBudgetProperties.setFailOnExceed(false);
+        }
+    }
+}
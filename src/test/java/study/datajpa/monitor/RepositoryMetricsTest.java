@@ -0,0 +1,45 @@
+package study.datajpa.monitor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "datajpa.slow-query.threshold=0ms")
+@Transactional
+class RepositoryMetricsTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired RepositoryMetrics repositoryMetrics;
+    @Autowired SlowQueryLog slowQueryLog;
+
+    @Test
+    @DisplayName("repository 메소드별 호출 수, row 수를 세고 threshold를 넘은 SQL은 바인딩 값과 함께 남긴다")
+    void repositoryMetricsTest() {
+        //given
+        memberRepository.save(new Member("MetricsMember", 10));
+        memberRepository.save(new Member("MetricsMember", 20));
+        long callsBefore = callsOf("MemberRepository.findByUserNameAndAgeGreaterThan");
+
+        //when
+        memberRepository.findByUserNameAndAgeGreaterThan("MetricsMember", 5);
+
+        //then
+        RepositoryMetrics.MethodStats stats = repositoryMetrics.getMethods().get("MemberRepository.findByUserNameAndAgeGreaterThan");
+        assertThat(stats.getCalls()).isEqualTo(callsBefore + 1);
+        assertThat(stats.getRows()).isGreaterThanOrEqualTo(2);
+        assertThat(slowQueryLog.recent())
+                .anyMatch(query -> query.getSql().contains("'MetricsMember'")
+                        && "MemberRepository.findByUserNameAndAgeGreaterThan".equals(query.getMethod()));
+    }
+
+    private long callsOf(String method) {
+        RepositoryMetrics.MethodStats stats = repositoryMetrics.getMethods().get(method);
+        return stats == null ? 0 : stats.getCalls();
+    }
+}
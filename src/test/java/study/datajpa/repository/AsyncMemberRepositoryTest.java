@@ -0,0 +1,48 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.monitor.QueryCount;
+import study.datajpa.monitor.QueryCountHolder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//다른 스레드에서 조회하므로 데이터를 커밋해야 한다. 테스트 트랜잭션 없이 실행하고 끝나면 지운다
+@SpringBootTest
+class AsyncMemberRepositoryTest {
+
+    @Autowired AsyncMemberRepository asyncMemberRepository;
+    @Autowired MemberRepository memberRepository;
+
+    @AfterEach
+    void cleanUp() {
+        QueryCountHolder.stop();
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("독립적인 조회를 병렬로 실행하고 SQL은 호출한 스레드의 QueryCount에 합산된다")
+    void fanOutTest() {
+        //given
+        memberRepository.saveAll(Arrays.asList(new Member("AsyncMember1", 10), new Member("AsyncMember2", 20)));
+        QueryCount count = QueryCountHolder.start();
+
+        //when
+        CompletableFuture<Long> total = asyncMemberRepository.count();
+        CompletableFuture<List<Member>> named = asyncMemberRepository.findByNames(Arrays.asList("AsyncMember1", "AsyncMember2"));
+        CompletableFuture.allOf(total, named).join();
+
+        //then
+        assertThat(total.join()).isEqualTo(2L);
+        assertThat(named.join()).hasSize(2);
+        assertThat(count.getTotal()).isGreaterThanOrEqualTo(2);
+    }
+}
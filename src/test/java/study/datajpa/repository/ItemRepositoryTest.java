@@ -3,8 +3,12 @@ package study.datajpa.repository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Item;
 
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -18,4 +22,18 @@ class ItemRepositoryTest {
         itemRepository.save(item1);
     }
 
+    @Test
+    @Transactional
+    void upsertAllTest(){
+        //insert
+        itemRepository.upsertAll(Arrays.asList(new Item(100L, "Item100"), new Item(101L, "Item101")));
+        //update : select 없이 같은 id로 다시 보낸다
+        itemRepository.upsert(new Item(100L, "Item100-updated"));
+
+        Item item = itemRepository.findById(100L).orElseThrow(NullPointerException::new);
+        assertThat(item.getItemName()).isEqualTo("Item100-updated");
+        assertThat(item.getCreatedDate()).isNotNull();
+        assertThat(itemRepository.findAllById(Arrays.asList(100L, 101L))).hasSize(2);
+    }
+
 }
\ No newline at end of file
@@ -11,6 +11,8 @@ import study.datajpa.entity.Team;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -61,6 +63,22 @@ class MemberJpaRepositoryTest {
         assertThat(memberJpaRepository.count()).isEqualTo(0);
     }
 
+    @Test
+    @DisplayName("streamAll은 전체 member를 커서로 읽는다")
+    void streamAllTest() {
+        //given
+        MakeTestMembers();
+
+        //when
+        List<String> names;
+        try (Stream<Member> members = memberJpaRepository.streamAll(1)) {
+            names = members.map(Member::getUserName).collect(Collectors.toList());
+        }
+
+        //then
+        assertThat(names).contains("TestMember1", "TestMember2");
+    }
+
     @Test
     @DisplayName("JPA로 메소드 이름으로 쿼리생성 테스트")
     void MethodNameQueryTest(){
@@ -1,22 +1,32 @@
 package study.datajpa.repository;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import study.datajpa.Specification.MemberSpec;
+import study.datajpa.config.RequestCachedAuditorAware;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberSearchCondition;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
+import study.datajpa.repository.projection.CompiledProjectionFactory;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -26,6 +36,10 @@ public class MemberRepositoryTest {
 
     @Autowired MemberRepository memberRepository;
     @Autowired TeamRepository teamRepository;
+    @Autowired SpecificationPlanCache specificationPlanCache;
+    @Autowired NameFilterTable nameFilterTable;
+    @Autowired AuditedBulkUpdater auditedBulkUpdater;
+    @Autowired RequestCachedAuditorAware auditorAware;
     @PersistenceContext
     EntityManager em;
 
@@ -175,6 +189,28 @@ public class MemberRepositoryTest {
         }
     }
 
+    @Test
+    @DisplayName("이름 목록이 threshold보다 길면 임시 테이블 join으로 조회한다")
+    void findByNamesTempTableTest(){
+        //given
+        MakeTestMembers();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i <= nameFilterTable.getThreshold(); i++) {
+            names.add("NoSuchMember" + i);
+        }
+        names.add("TestMember1");
+        names.add("TestMember2");
+        names.add("TestMember2");
+        long tempTableCount = nameFilterTable.getTempTableCount();
+
+        //when
+        List<Member> findMembers = memberRepository.findByNames(names);
+
+        //then
+        assertThat(findMembers).extracting("userName").containsExactlyInAnyOrder("TestMember1", "TestMember2");
+        assertThat(nameFilterTable.getTempTableCount()).isEqualTo(tempTableCount + 1);
+    }
+
     @Test
     @DisplayName("Spring Data로 다양한 반환타입을 이용한 Query 테스트")
     void findVariousReturnTypeOfMemberByUserNameTest(){
@@ -308,6 +344,106 @@ public class MemberRepositoryTest {
         }
     }
 
+    @Test
+    @DisplayName("keyset 페이징 테스트")
+    public void findByKeysetTest(){
+        //given
+        List<Member> members = MakeTestMembersWithTeam();
+        int size = 3;
+
+        //when
+        Slice<Member> first = memberRepository.findByKeyset(null, null, size);
+        Member last = first.getContent().get(first.getNumberOfElements() - 1);
+        Slice<Member> second = memberRepository.findByKeyset(last.getUserName(), last.getId(), size);
+        last = second.getContent().get(second.getNumberOfElements() - 1);
+        Slice<Member> third = memberRepository.findByKeyset(last.getUserName(), last.getId(), size);
+
+        //then
+        //같은 userName(TestMember1)은 id 순서로 이어진다
+        assertThat(first.getContent()).containsExactly(members.get(0), members.get(5), members.get(6));
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).containsExactly(members.get(1), members.get(2), members.get(3));
+        assertThat(second.hasNext()).isTrue();
+        assertThat(third.getContent()).containsExactly(members.get(4));
+        assertThat(third.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Page count 캐시 테스트")
+    public void findByAgeCachedCountTest(){
+        //given
+        MakeTestMembersWithTeam();
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "userName"));
+
+        //when
+        Page<Member> memberPage = memberRepository.findByAgeCachedCount(10, pageRequest);
+
+        //then
+        assertThat(memberPage.getTotalElements()).isEqualTo(5);
+        assertThat(memberPage.getContent().get(0).getUserName()).isEqualTo("TestMember5");
+
+        //save 하면 캐시가 비워진다
+        memberRepository.save(new Member("TestMember6", 10));
+        assertThat(memberRepository.findByAgeCachedCount(10, pageRequest).getTotalElements()).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("batch insert 테스트")
+    public void persistInBatchTest(){
+        //given
+        Team team = new Team("batch team");
+        teamRepository.persistInBatch(Collections.singletonList(team));
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            members.add(new Member("BatchMember" + i, i, team));
+        }
+
+        //when
+        int count = memberRepository.persistInBatch(members);
+
+        //then
+        assertThat(count).isEqualTo(250);
+        assertThat(memberRepository.count()).isEqualTo(250);
+        assertThat(members).allMatch(m -> m.getId() != null);
+    }
+
+    @Test
+    @DisplayName("persistInBatch는 저장한 엔티티만 준영속으로 만들고 이미 읽어 둔 엔티티는 그대로 둔다")
+    public void persistInBatchKeepsOtherEntitiesTest(){
+        //given
+        Member loaded = memberRepository.save(new Member("LoadedMember", 10));
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            members.add(new Member("BatchMember" + i, i));
+        }
+
+        //when
+        memberRepository.persistInBatch(members);
+
+        //then
+        assertThat(em.contains(loaded)).isTrue();
+        assertThat(members).noneMatch(em::contains);
+    }
+
+    @Test
+    @DisplayName("Stream 조회 테스트")
+    public void streamAllByTest(){
+        //given
+        MakeTestMembersWithTeam();
+        em.flush();
+        em.clear();
+
+        //when
+        long count;
+        try (Stream<Member> members = memberRepository.streamAllBy()) {
+            count = members.filter(m -> m.getTeam() != null).count();
+        }
+
+        //then
+        assertThat(count).isEqualTo(7);
+    }
+
     @Test
     @DisplayName("Spring Data로 bulk 업데이트 테스트")
     public void bulkAgePlusTest() {
@@ -357,6 +493,95 @@ public class MemberRepositoryTest {
         }
     }
 
+    @Test
+    @DisplayName("bulk 업데이트도 lastModifiedBy, lastModifiedDate를 같이 갱신한다")
+    public void bulkAgePlusAuditTest() {
+        //given
+        MakeTestMembersWithTeam();
+        em.flush();
+        em.createQuery("update Member m set m.lastModifiedBy = null, m.lastModifiedDate = null").executeUpdate();
+        em.clear();
+
+        //when
+        int i = memberRepository.bulkAgePlus(30);
+        em.clear();
+
+        //then
+        assertThat(i).isEqualTo(2);
+        for (Member member : memberRepository.findAll()) {
+            if (member.getAge() > 30) {
+                assertThat(member.getLastModifiedBy()).isNotNull();
+                assertThat(member.getLastModifiedDate()).isAfterOrEqualTo(member.getCreatedDate());
+            } else {
+                assertThat(member.getLastModifiedBy()).isNull();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("alias 없는 bulk update, 전체 클래스 이름의 bulk update도 감사 컬럼과 version을 갱신한다")
+    public void bulkUpdateWithoutAliasTest() {
+        //given
+        MakeTestMembers();
+        em.flush();
+        em.createQuery("update Member m set m.lastModifiedBy = null").executeUpdate();
+        em.clear();
+        Long version = memberRepository.findMemberByUserName("TestMember2").getVersion();
+        em.clear();
+
+        //when
+        int updated = auditedBulkUpdater.executeUpdate("update Member set age = age + 1 where age >= :age",
+                Collections.singletonMap("age", 20));
+        String qualified = auditedBulkUpdater.rewrite("update study.datajpa.entity.Member m set m.age = 0").jpql;
+        em.clear();
+
+        //then
+        assertThat(updated).isEqualTo(1);
+        Member member = memberRepository.findMemberByUserName("TestMember2");
+        assertThat(member.getAge()).isEqualTo(21);
+        assertThat(member.getLastModifiedBy()).isNotNull();
+        assertThat(member.getVersion()).isEqualTo(version + 1);
+        assertThat(qualified).contains("m.lastModifiedDate = :", "m.version = m.version + 1");
+    }
+
+    @Test
+    @DisplayName("저장/수정하면 FastAuditingEntityListener가 감사 컬럼을 채우고 auditor는 요청마다 한번 만든다")
+    public void auditingTest() throws InterruptedException {
+        //given
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            String auditor = auditorAware.currentAuditor();
+
+            //when
+            Member member = memberRepository.save(new Member("AuditMember", 10));
+            em.flush();
+
+            //then
+            assertThat(auditorAware.currentAuditor()).isEqualTo(auditor);
+            assertThat(member.getCreatedDate()).isNotNull();
+            assertThat(member.getLastModifiedDate()).isEqualTo(member.getCreatedDate());
+            assertThat(member.getCreatedBy()).isEqualTo(auditor);
+            assertThat(member.getLastModifiedBy()).isEqualTo(auditor);
+
+            //when : 다른 요청에서 수정
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+            String nextAuditor = auditorAware.currentAuditor();
+            Thread.sleep(10);
+            member.setAge(11);
+            em.flush();
+            em.clear();
+
+            //then
+            Member found = memberRepository.findById(member.getId()).get();
+            assertThat(nextAuditor).isNotEqualTo(auditor);
+            assertThat(found.getCreatedBy()).isEqualTo(auditor);
+            assertThat(found.getLastModifiedBy()).isEqualTo(nextAuditor);
+            assertThat(found.getLastModifiedDate()).isAfter(found.getCreatedDate());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
     @Test
     @DisplayName("Spring Data JPA fetch join 테스트")
     public void findMemberLazy() {
@@ -414,6 +639,31 @@ public class MemberRepositoryTest {
 
     }
 
+    @Test
+    @DisplayName("batch fetch 테스트 : 지연로딩 team을 in 절로 한번에 가져온다")
+    public void findMemberLazyBatchFetch() {
+        //given
+        MakeTestMembersWithTeam();
+        em.flush();
+        em.clear();
+        em.getEntityManagerFactory().getCache().evictAll();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //when
+        List<Member> members = memberRepository.findAll2();
+        for (Member member : members) {
+            member.getTeam().getTeamName();
+        }
+        for (Member member : members) {
+            member.getTeam().getMembers().size();
+        }
+
+        //then
+        //member 1번 + team 1번 + team.members 1번
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
     @Test
     @DisplayName("Spring Data JPA hint 테스트")
     public void findReadOnlyByUserNameTest(){
@@ -473,6 +723,69 @@ public class MemberRepositoryTest {
         Assertions.assertThat(result.size()).isEqualTo(2);
     }
 
+    @Test
+    @DisplayName("구조가 같은 Specification은 번역된 JPQL을 재사용한다")
+    public void findAllCachedSpecTest(){
+        //given
+        MakeTestMembersWithTeam();
+        em.flush();
+        em.clear();
+        long hitsBefore = specificationPlanCache.getHitCount();
+
+        //when
+        List<Member> first = memberRepository.findAllCached(MemberSpec.userName("TestMember1").and(MemberSpec.teamName("2 team")));
+        List<Member> second = memberRepository.findAllCached(MemberSpec.userName("TestMember2").and(MemberSpec.teamName("2 team")));
+
+        //then
+        assertThat(first.size()).isEqualTo(2);
+        assertThat(second).allMatch(m -> m.getUserName().equals("TestMember2"));
+        assertThat(specificationPlanCache.getHitCount()).isGreaterThan(hitsBefore);
+    }
+
+    @Test
+    @DisplayName("조건 검색 + id keyset 페이징을 DTO로 조회")
+    public void searchTest(){
+        //given
+        MakeTestMembersWithTeam();
+        em.flush();
+        em.clear();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUserNamePrefix("TestMember1");
+        condition.setAgeGoe(20);
+        condition.setTeamName("2 team");
+
+        //when
+        Slice<MemberDto> first = memberRepository.search(condition, null, null, 1);
+        MemberDto last = first.getContent().get(0);
+        Slice<MemberDto> second = memberRepository.search(condition, last.getUserName(), last.getId(), 1);
+
+        //then
+        assertThat(first.getContent()).hasSize(1);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent()).hasSize(1);
+        assertThat(second.hasNext()).isFalse();
+        assertThat(second.getContent().get(0).getId()).isGreaterThan(first.getContent().get(0).getId());
+        assertThat(second.getContent().get(0).getTeamName()).isEqualTo("2 team");
+    }
+
+    @Test
+    @DisplayName("DTO 생성자 표현식으로 페이징 조회 - 엔티티가 영속성 컨텍스트에 올라가지 않는다")
+    public void findAllProjectedTest(){
+        //given
+        MakeTestMembersWithTeam();
+        em.flush();
+        em.clear();
+
+        //when
+        Page<MemberDto> page = memberRepository.findAllProjected(MemberDto.class, PageRequest.of(0, 3, Sort.by("id")));
+
+        //then
+        assertThat(page.getContent()).hasSize(3);
+        assertThat(page.getTotalElements()).isEqualTo(memberRepository.count());
+        assertThat(page.getContent()).allMatch(dto -> dto.getTeamName() != null);
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
     @Test
     @DisplayName("Spring Data JPA QueryByExample 테스트")
     public void QueryByExampleTest (){
@@ -530,6 +843,26 @@ public class MemberRepositoryTest {
             System.out.println(nestedClosedProjection.getTeam().getTeamName() + " "+nestedClosedProjection.getUserName());
         }
     }
+    @Test
+    @DisplayName("인터페이스 projection은 proxy 대신 생성된 클래스로 만든다")
+    public void compiledProjectionTest(){
+        //given
+        MakeTestMembersWithTeam();
+        em.flush();
+        em.clear();
+
+        //when
+        List<UserNameOnly> open = memberRepository.findProjectionsByUserName("TestMember2");
+        List<NestedClosedProjections> nested = memberRepository.findDynamicProjectionByUserName("TestMember2", NestedClosedProjections.class);
+
+        //then
+        assertThat(open).hasSize(1);
+        assertThat(open.get(0)).isInstanceOf(CompiledProjectionFactory.ProjectionBase.class);
+        assertThat(open.get(0).getMemberUserNameAndAge()).isEqualTo("TestMember2 10");
+        assertThat(nested.get(0)).isInstanceOf(CompiledProjectionFactory.ProjectionBase.class);
+        assertThat(nested.get(0).getTeam().getTeamName()).isEqualTo("A team");
+    }
+
     @Test
     @DisplayName("Spring Data JPA native query 테스트")
     public void NativeQueryTest (){
@@ -0,0 +1,57 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//replica 라우팅이 꺼진 기본 설정. pool 크기만큼 동시에 임시 테이블 경로를 타도 커넥션을 하나씩만 쓰는지 본다
+//커넥션을 두 개씩 잡으면 pool 2개를 서로 나눠 쥔 채 connection-timeout 까지 막힌다
+@SpringBootTest(properties = {
+        "datajpa.in-list.temp-table-threshold=2",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=2000"
+})
+class NameFilterTableTest {
+
+    @Autowired AsyncMemberRepository asyncMemberRepository;
+    @Autowired MemberRepository memberRepository;
+    @Autowired NameFilterTable nameFilterTable;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("임시 테이블 findByNames를 pool 크기 이상 동시에 호출해도 막히지 않는다")
+    void concurrentTempTableTest() throws Exception {
+        //given
+        memberRepository.saveAll(Arrays.asList(new Member("FilterMember1", 10), new Member("FilterMember2", 20)));
+        List<String> names = Arrays.asList("FilterMember1", "FilterMember2", "Other");
+        long before = nameFilterTable.getTempTableCount();
+
+        //when
+        List<CompletableFuture<List<Member>>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(asyncMemberRepository.findByNames(names));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        //then
+        for (CompletableFuture<List<Member>> future : futures) {
+            assertThat(future.join()).extracting("userName").containsExactlyInAnyOrder("FilterMember1", "FilterMember2");
+        }
+        assertThat(nameFilterTable.getTempTableCount() - before).isEqualTo(8);
+    }
+}
@@ -0,0 +1,87 @@
+package study.datajpa.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//2차 캐시는 영속성 컨텍스트(트랜잭션)를 넘어서 공유된다. 트랜잭션을 나눠서 조회하고 끝나면 지운다
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired EntityManagerFactory entityManagerFactory;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    @DisplayName("다른 영속성 컨텍스트에서 같은 Member/Team을 조회하면 2차 캐시에서 가져온다")
+    void entityCacheHitTest() {
+        //given
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Long memberId = transactionTemplate.execute(status -> {
+            Team team = teamRepository.save(new Team("CacheTeam"));
+            return memberRepository.save(new Member("CacheMember", 10, team)).getId();
+        });
+        entityManagerFactory.getCache().evictAll();
+        Statistics statistics = statistics();
+
+        //when
+        transactionTemplate.execute(status -> memberRepository.findById(memberId).get().getTeam().getTeamName());
+        long missesAfterFirst = statistics.getSecondLevelCacheMissCount();
+        long queriesAfterFirst = statistics.getPrepareStatementCount();
+        String teamName = transactionTemplate.execute(status ->
+                memberRepository.findById(memberId).get().getTeam().getTeamName());
+
+        //then
+        assertThat(teamName).isEqualTo("CacheTeam");
+        assertThat(missesAfterFirst).isGreaterThanOrEqualTo(2);//member, team
+        assertThat(statistics.getDomainDataRegionStatistics("member").getHitCount()).isEqualTo(1);
+        assertThat(statistics.getDomainDataRegionStatistics("team").getHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(queriesAfterFirst);//두번째 조회는 SQL 없음
+    }
+
+    @Test
+    @DisplayName("query cache : 같은 파라미터로 다시 조회하면 결과 id 목록을 캐시에서 가져온다")
+    void queryCacheHitTest() {
+        //given
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.execute(status -> memberRepository.save(new Member("QueryCacheMember", 10)));
+        entityManagerFactory.getCache().evictAll();
+        Statistics statistics = statistics();
+
+        //when
+        transactionTemplate.execute(status -> memberRepository.findMemberByUserName("QueryCacheMember"));
+        Member member = transactionTemplate.execute(status -> memberRepository.findMemberByUserName("QueryCacheMember"));
+
+        //then
+        assertThat(member.getUserName()).isEqualTo("QueryCacheMember");
+        assertThat(statistics.getQueryCacheMissCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCachePutCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
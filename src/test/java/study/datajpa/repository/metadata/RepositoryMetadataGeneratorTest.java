@@ -0,0 +1,37 @@
+package study.datajpa.repository.metadata;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class RepositoryMetadataGeneratorTest {
+
+    @Autowired EntityManagerFactory emf;
+
+    @Test
+    @DisplayName("모든 repository query 메소드가 빌드 시점 검증을 통과한다")
+    void generateTest() {
+        //given
+        List<String> errors = new ArrayList<>();
+
+        //when
+        Map<String, Object> metadata = RepositoryMetadataGenerator.generate(emf, errors);
+
+        //then
+        assertThat(errors).isEmpty();
+        List<?> repositories = (List<?>) metadata.get("repositories");
+        assertThat(repositories).extracting("interface").contains(MemberRepository.class.getName());
+        assertThat(repositories).extracting("fingerprint")
+                .contains(RepositoryQueryMethods.fingerprint(MemberRepository.class));
+    }
+}
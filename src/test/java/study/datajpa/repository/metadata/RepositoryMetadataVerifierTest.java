@@ -0,0 +1,25 @@
+package study.datajpa.repository.metadata;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//test resources의 repository-metadata.json 은 MemberRepository fingerprint가 맞지 않게 만들어 두었다
+class RepositoryMetadataVerifierTest {
+
+    @Test
+    @DisplayName("빌드 시점 metadata와 repository가 다르면 기동을 실패시킨다")
+    void staleMetadataFailsTest() {
+        assertThatThrownBy(() -> new RepositoryMetadataVerifier(true).verify())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("MemberRepository");
+    }
+
+    @Test
+    @DisplayName("fail-on-mismatch=false 면 경고만 남긴다")
+    void staleMetadataWarnsTest() {
+        assertThatCode(() -> new RepositoryMetadataVerifier(false).verify()).doesNotThrowAnyException();
+    }
+}
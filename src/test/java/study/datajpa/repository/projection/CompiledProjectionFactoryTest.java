@@ -0,0 +1,59 @@
+package study.datajpa.repository.projection;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.NestedClosedProjections;
+import study.datajpa.repository.UserNameOnly;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledProjectionFactoryTest {
+
+    CompiledProjectionFactory factory = new CompiledProjectionFactory();
+
+    @Test
+    @DisplayName("closed property는 엔티티 getter를, open property는 target 기준 SpEL을 쓴다")
+    void entitySourceTest() {
+        Member member = new Member("member1", 10, new Team("teamA"));
+
+        UserNameOnly open = factory.createProjection(UserNameOnly.class, member);
+        NestedClosedProjections nested = factory.createProjection(NestedClosedProjections.class, member);
+
+        assertThat(open).isInstanceOf(CompiledProjectionFactory.ProjectionBase.class);
+        assertThat(open.getUserName()).isEqualTo("member1");
+        assertThat(open.getMemberUserNameAndAge()).isEqualTo("member1 10");
+        assertThat(nested).isInstanceOf(CompiledProjectionFactory.ProjectionBase.class);
+        assertThat(nested.getTeam().getTeamName()).isEqualTo("teamA");
+    }
+
+    @Test
+    @DisplayName("tuple(Map) 조회 결과도 property 이름으로 읽는다")
+    void tupleSourceTest() {
+        Map<String, Object> tuple = new HashMap<>();
+        tuple.put("userName", "member1");
+        tuple.put("team", new Team("teamA"));
+
+        NestedClosedProjections nested = factory.createProjection(NestedClosedProjections.class, tuple);
+
+        assertThat(nested).isInstanceOf(CompiledProjectionFactory.ProjectionBase.class);
+        assertThat(nested.getUserName()).isEqualTo("member1");
+        assertThat(nested.getTeam().getTeamName()).isEqualTo("teamA");
+    }
+
+    @Test
+    @DisplayName("target 아래 property만 쓰는 @Value 식만 컴파일 대상이다")
+    void targetExpressionTest() {
+        assertThat(factory.parseTargetExpression("#{target.userName + ' ' + target.age}")).isNotNull();
+        assertThat(factory.parseTargetExpression("#{target.x + 'target.y'}")).isNotNull();
+        assertThat(factory.parseTargetExpression("#{#root.target}")).isNull();
+        assertThat(factory.parseTargetExpression("#{mytarget.z}")).isNull();
+        assertThat(factory.parseTargetExpression("#{target.userName.toUpperCase()}")).isNull();
+        assertThat(factory.parseTargetExpression("#{@bean.name(target)}")).isNull();
+        assertThat(factory.parseTargetExpression("#{args[0]}")).isNull();
+    }
+}
@@ -0,0 +1,83 @@
+package study.datajpa.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//chunk마다 별도 트랜잭션으로 커밋하므로 테스트 트랜잭션 없이 실행하고 끝나면 지운다
+@SpringBootTest
+class MemberBulkUpdateServiceTest {
+
+    @Autowired MemberBulkUpdateService memberBulkUpdateService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        jdbcTemplate.update("delete from member_bulk_job_chunk");
+    }
+
+    @Test
+    @DisplayName("bulkAgePlus를 chunk로 나눠서 병렬 실행")
+    void bulkAgePlusInChunksTest() {
+        //given
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            members.add(new Member("ChunkMember" + i, i));
+        }
+        memberRepository.persistInBatch(members);
+        AtomicInteger chunks = new AtomicInteger();
+
+        //when
+        int updated = memberBulkUpdateService.bulkAgePlus(10, 3, 2,
+                (fromId, toId, count, completed, total) -> chunks.incrementAndGet());
+
+        //then
+        assertThat(updated).isEqualTo(10);
+        assertThat(chunks.get()).isEqualTo(4);//대상 10건을 3건씩
+        assertThat(memberRepository.findUser("ChunkMember10", 11)).hasSize(1);
+        assertThat(memberRepository.findUser("ChunkMember9", 9)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("중간에 실패한 job을 같은 jobId로 다시 실행하면 남은 chunk만 처리한다")
+    void resumeTest() {
+        //given
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            members.add(new Member("ResumeMember" + i, 10 + i));
+        }
+        memberRepository.persistInBatch(members);
+        String jobId = "resume-test-" + System.nanoTime();
+
+        //when : 첫 chunk가 커밋된 뒤 실패
+        assertThatThrownBy(() -> memberBulkUpdateService.bulkAgePlus(jobId, 10, 3, 1,
+                (fromId, toId, count, completed, total) -> {
+                    throw new IllegalStateException("stop after first chunk");
+                }))
+                .isInstanceOf(IllegalStateException.class);
+        int resumed = memberBulkUpdateService.bulkAgePlus(jobId, 10, 3, 1);
+
+        //then : 모든 member가 정확히 한 번씩 +1
+        assertThat(resumed).isEqualTo(7);
+        for (int i = 0; i < 10; i++) {
+            assertThat(memberRepository.findUser("ResumeMember" + i, 11 + i)).hasSize(1);
+        }
+        //끝난 job의 chunk 기록은 지워진다
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from member_bulk_job_chunk where job_id = ?", Long.class, jobId)).isZero();
+    }
+}
@@ -0,0 +1,127 @@
+package study.datajpa.service;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberExportServiceTest {
+
+    @Autowired MemberExportService memberExportService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TeamRepository teamRepository;
+    @Autowired EntityManager em;
+    @Autowired MockMvc mockMvc;
+
+    @Test
+    @DisplayName("CSV export는 쉼표, 따옴표, 줄바꿈이 들어간 값을 따옴표로 감싼다")
+    void csvExportTest() throws Exception {
+        //given
+        Team team = teamRepository.save(new Team("Export,Team"));
+        Member plain = new Member("ExportMember1", 10, team);
+        Member quoted = new Member("Export\"Member\"2", 20);
+        Member carriageReturn = new Member("Export\rMember3", 30);
+        memberRepository.saveAll(Arrays.asList(plain, quoted, carriageReturn));
+        em.flush();
+        em.clear();
+
+        //when
+        StringWriter writer = new StringWriter();
+        long count = memberExportService.export(MemberExportService.Format.CSV, writer);
+
+        //then
+        String csv = writer.toString();
+        assertThat(count).isGreaterThanOrEqualTo(3);
+        assertThat(csv).startsWith("id,userName,teamName\n");
+        assertThat(csv).contains(plain.getId() + ",ExportMember1,\"Export,Team\"\n");
+        assertThat(csv).contains(quoted.getId() + ",\"Export\"\"Member\"\"2\",\n");
+        assertThat(csv).contains(carriageReturn.getId() + ",\"Export\rMember3\",\n");
+    }
+
+    @Test
+    @DisplayName("NDJSON export는 member 하나당 JSON 한 줄을 쓴다")
+    void ndjsonExportTest() throws Exception {
+        //given
+        Team team = teamRepository.save(new Team("ExportTeam"));
+        Member member = memberRepository.save(new Member("ExportMember1", 10, team));
+        em.flush();
+        em.clear();
+
+        //when
+        StringWriter writer = new StringWriter();
+        long count = memberExportService.export(MemberExportService.Format.NDJSON, writer);
+
+        //then
+        String[] lines = writer.toString().split("\n");
+        assertThat(lines).hasSize((int) count);
+        assertThat(lines).anySatisfy(line -> assertThat(line)
+                .contains("\"id\":" + member.getId())
+                .contains("\"userName\":\"ExportMember1\"")
+                .contains("\"teamName\":\"ExportTeam\""));
+    }
+
+    @Test
+    @DisplayName("export는 CLEAR_INTERVAL 건마다 영속성 컨텍스트를 비운다")
+    void exportClearsPersistenceContextTest() throws Exception {
+        //given
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i <= MemberExportService.CLEAR_INTERVAL; i++) {
+            members.add(new Member("ExportMember" + i, i));
+        }
+        memberRepository.saveAll(members);
+        em.flush();
+        em.clear();
+
+        //when
+        long count = memberExportService.export(MemberExportService.Format.NDJSON, new StringWriter());
+
+        //then
+        assertThat(count).isGreaterThan(MemberExportService.CLEAR_INTERVAL);
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isLessThan(MemberExportService.CLEAR_INTERVAL);
+    }
+
+    @Test
+    @DisplayName("/members/export 는 format에 맞는 content type으로 응답하고 모르는 format은 400")
+    void exportEndpointTest() throws Exception {
+        //given
+        memberRepository.save(new Member("ExportMember1", 10));
+        em.flush();
+
+        //when
+        MvcResult csv = mockMvc.perform(get("/members/export").param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andReturn();
+
+        //then
+        assertThat(csv.getResponse().getContentAsString()).startsWith("id,userName,teamName\n").contains(",ExportMember1,");
+        mockMvc.perform(get("/members/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"));
+        mockMvc.perform(get("/members/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,181 @@
+package study.datajpa.service;
+
+import org.hibernate.LockMode;
+import org.hibernate.LockOptions;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQL95Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.LockModeType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+//여러 스레드가 각자 트랜잭션을 커밋해야 하므로 테스트 트랜잭션 없이 실행하고 끝나면 지운다
+@SpringBootTest
+class OptimisticLockRetryTest {
+
+    @Autowired OptimisticLockRetry optimisticLockRetry;
+    @Autowired MemberRepository memberRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired EntityManagerFactory entityManagerFactory;
+    @Autowired EntityManager em;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("같은 member를 동시에 수정해도 충돌난 쪽이 재시도해서 갱신이 유실되지 않는다")
+    void concurrentIncrementTest() throws Exception {
+        //given
+        Long id = memberRepository.save(new Member("VersionMember", 0)).getId();
+        int threads = 4;
+        int incrementsPerThread = 5;
+
+        //when
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < incrementsPerThread; i++) {
+                        optimisticLockRetry.execute(100, () -> {
+                            Member member = memberRepository.findById(id).orElseThrow(IllegalStateException::new);
+                            member.setAge(member.getAge() + 1);
+                            return null;
+                        });
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        //then
+        Member member = memberRepository.findById(id).orElseThrow(IllegalStateException::new);
+        assertThat(member.getAge()).isEqualTo(threads * incrementsPerThread);
+        assertThat(member.getVersion()).isEqualTo((long) threads * incrementsPerThread);
+    }
+
+    @Test
+    @DisplayName("claimNext는 가장 오래 전에 수정된 member부터 잠그고 가져온다")
+    void claimNextTest() {
+        //given
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            members.add(new Member("QueueMember" + i, i));
+        }
+        memberRepository.saveAll(members);
+
+        //when
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<Member> claimed = transactionTemplate.execute(status -> memberRepository.claimNext(PageRequest.of(0, 3)));
+
+        //then
+        assertThat(claimed).hasSize(3);
+    }
+
+    //아래 동시 claim 테스트는 H2에서 건너뛰므로 skip locked 가 실제로 나가는지는 여기서 나눠서 확인한다
+    @Test
+    @DisplayName("claimNext는 PESSIMISTIC_WRITE로 잠그고 lock timeout 힌트는 skip locked 로 번역된다")
+    void claimNextLockTest() throws Exception {
+        //given
+        memberRepository.save(new Member("QueueMember", 10));
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        //when
+        LockModeType lockMode = transactionTemplate.execute(status ->
+                em.getLockMode(memberRepository.claimNext(PageRequest.of(0, 1)).get(0)));
+        QueryHints hints = MemberRepository.class.getMethod("claimNext", Pageable.class).getAnnotation(QueryHints.class);
+        LockOptions lockOptions = new LockOptions(LockMode.PESSIMISTIC_WRITE)
+                .setTimeOut(Integer.parseInt(hints.value()[0].value()));
+
+        //then
+        assertThat(lockMode).isEqualTo(LockModeType.PESSIMISTIC_WRITE);
+        assertThat(hints.value()[0].name()).isEqualTo("javax.persistence.lock.timeout");
+        assertThat(lockOptions.getTimeOut()).isEqualTo(LockOptions.SKIP_LOCKED);
+        assertThat(new PostgreSQL95Dialect().getForUpdateString(lockOptions)).contains("skip locked");
+        //H2 1.4 dialect는 일반 for update
+        assertThat(new H2Dialect().getForUpdateString(lockOptions)).doesNotContain("skip locked");
+    }
+
+    //H2 dialect는 skip locked를 지원하지 않아 두 번째 트랜잭션이 기다리다 lock timeout 난다 -> skip locked 지원 DB에서만 실행한다
+    @Test
+    @DisplayName("두 트랜잭션이 동시에 claimNext 하면 서로 다른 member를 기다리지 않고 가져간다")
+    void concurrentClaimNextTest() throws Exception {
+        assumeTrue(entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().supportsSkipLocked(), "dialect does not support skip locked");
+
+        //given
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            members.add(new Member("QueueMember" + i, i));
+        }
+        memberRepository.saveAll(members);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch firstClaimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        //when : 첫 번째 트랜잭션이 2건을 잠근 채로 있는 동안 두 번째 트랜잭션이 claim 한다
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<Long>> first = executor.submit(() -> transactionTemplate.execute(status -> {
+                List<Long> ids = ids(memberRepository.claimNext(PageRequest.of(0, 2)));
+                firstClaimed.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return ids;
+            }));
+            assertThat(firstClaimed.await(5, TimeUnit.SECONDS)).isTrue();
+
+            Future<List<Long>> second = executor.submit(() -> transactionTemplate.execute(
+                    status -> ids(memberRepository.claimNext(PageRequest.of(0, 2)))));
+            //첫 번째가 잠금을 쥐고 있는 동안 끝나야 한다
+            List<Long> secondIds = second.get(5, TimeUnit.SECONDS);
+            release.countDown();
+            List<Long> firstIds = first.get(5, TimeUnit.SECONDS);
+
+            //then
+            assertThat(firstIds).hasSize(2);
+            assertThat(secondIds).hasSize(2);
+            assertThat(secondIds).doesNotContainAnyElementsOf(firstIds);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<Long> ids(List<Member> members) {
+        return members.stream().map(Member::getId).collect(Collectors.toList());
+    }
+}